@@ -5,7 +5,9 @@ CREATE DATABASE IF NOT EXISTS test
 
 USE rpg;
 
+-- indexes and later schema changes are applied on startup by the migrations in src/main/resources/db/migration
 DROP TABLE IF EXISTS player;
+DROP TABLE IF EXISTS flyway_schema_history;
 
 CREATE TABLE player
 (
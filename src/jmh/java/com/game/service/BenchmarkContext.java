@@ -0,0 +1,96 @@
+package com.game.service;
+
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Starts the dev (H2) context outside the servlet container and fills it with generated players.
+final class BenchmarkContext {
+
+    private static final String[] SYLLABLES = {"ка", "ри", "ел", "ан", "то", "ми", "dor", "el", "ri", "th", "an", "gal"};
+    private static final long FIRST_BIRTHDAY = 946684800000L;
+    private static final long LAST_BIRTHDAY = 32503680000000L;
+    private static final int BATCH_SIZE = 5_000;
+
+    private BenchmarkContext() {
+    }
+
+    static AnnotationConfigWebApplicationContext start(int players) {
+        return start(players, false);
+    }
+
+    // the query cache is switched off so that every invocation reaches the database or the column index
+    static AnnotationConfigWebApplicationContext start(int players, boolean columnIndex) {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("cache.query.maximum-size", "0");
+        properties.put("search.column-index.enabled", String.valueOf(columnIndex));
+        // measured as in production, without the statement tracer the dev profile turns on
+        properties.put("trace.enabled", "false");
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+
+        if (players > 0) {
+            seed(context.getBean(JdbcTemplate.class), players);
+            context.getBeansOfType(PlayerWriteListener.class).values().forEach(PlayerWriteListener::reload);
+        }
+        return context;
+    }
+
+    static Player randomPlayer(Random random) {
+        Player player = new Player();
+        player.setName(randomText(random, 12));
+        player.setTitle(randomText(random, 30));
+        player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+        player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+        player.setBirthday(new Date(FIRST_BIRTHDAY + (long) (random.nextDouble() * (LAST_BIRTHDAY - FIRST_BIRTHDAY))));
+        player.setBanned(random.nextInt(4) == 0);
+        player.setExperience(random.nextInt(10_000_001));
+        player.calcLevel();
+        return player;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int players) {
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < players; i++) {
+            Player player = randomPlayer(random);
+            batch.add(new Object[]{player.getName(), player.getTitle(), player.getRace().name(),
+                    player.getProfession().name(), player.getBirthday(), player.getBanned(), player.getExperience(),
+                    player.getLevel(), player.getUntilNextLevel()});
+            if (batch.size() == BATCH_SIZE || i == players - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO player (name, title, race, profession, birthday, banned, "
+                        + "experience, level, untilNextLevel) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String randomText(Random random, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        int syllables = 2 + random.nextInt(4);
+        for (int i = 0; i < syllables; i++) {
+            text.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        if (text.length() > maxLength) {
+            text.setLength(maxLength);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.game.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// CPU-only work done per request: picking the query for the search shape, validating, levelling and writing JSON.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayersHotPathBenchmark {
+
+    @Param({"NONE", "NAME", "RACE_BANNED", "LEVEL_RANGE"})
+    private SearchFilter filter;
+
+    @Param({"3", "100"})
+    private int pageSize;
+
+    private AnnotationConfigWebApplicationContext context;
+    private PlayersService service;
+    private PlayerQueryTemplates queries;
+    private Map<String, String> params;
+    private PlayerOrder order;
+    private Player player;
+    private List<Player> page;
+    private MappingJackson2HttpMessageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1000);
+        service = context.getBean(PlayersService.class);
+        queries = context.getBean(PlayerQueryTemplates.class);
+        params = filter.params();
+        order = PlayerOrder.valueOf(params.getOrDefault("order", "ID"));
+
+        Random random = new Random(42);
+        player = BenchmarkContext.randomPlayer(random);
+        page = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Player next = BenchmarkContext.randomPlayer(random);
+            next.setId(id);
+            page.add(next);
+        }
+
+        converter = new MappingJackson2HttpMessageConverter(context.getBean(ObjectMapper.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String playerQuery() {
+        Map<String, Object> values = queries.getParameters(params, order);
+        return values == null ? null : queries.listQuery(order, values.keySet());
+    }
+
+    @Benchmark
+    public String countQuery() {
+        Map<String, Object> values = queries.getParameters(params, null);
+        return values == null ? null : queries.countQuery(values.keySet());
+    }
+
+    @Benchmark
+    public Player validatePlayer() {
+        service.validatePlayer(player);
+        return player;
+    }
+
+    @Benchmark
+    public Player calcLevel() {
+        player.calcLevel();
+        return player;
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes();
+    }
+}
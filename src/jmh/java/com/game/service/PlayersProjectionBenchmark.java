@@ -0,0 +1,88 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Managed entities against the constructor projection used by getPlayers, in the same read-only transaction.
+// Run with -prof gc to compare gc.alloc.rate.norm, the bytes allocated per page:
+// mvn -Pjmh test-compile exec:exec -Djmh.args="PlayersProjectionBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayersProjectionBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int pageSize;
+
+    private AnnotationConfigWebApplicationContext context;
+    private PlayersService service;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private Map<String, String> params;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(10_000);
+        service = context.getBean(PlayersService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+        definition.setReadOnly(true);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class), definition);
+        params = new HashMap<>();
+        params.put("pageSize", String.valueOf(pageSize));
+        params.put("order", "LEVEL");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Player> managedEntities() {
+        return transactionTemplate.execute(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+            Root<Player> playerRoot = query.from(Player.class);
+            query.select(playerRoot).orderBy(criteriaBuilder.asc(playerRoot.get("level")), criteriaBuilder.asc(playerRoot.get("id")));
+            return entityManager.createQuery(query).setMaxResults(pageSize).getResultList();
+        });
+    }
+
+    @Benchmark
+    public List<Player> projection() {
+        return transactionTemplate.execute(status -> service.getPlayers(params));
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.service;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A page of players written as JSON, with the reflective field serializer and with PlayerSerializer.
+// Run with -prof gc to compare allocation per page as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayersSerializationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean playerSerializer;
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private List<Player> page;
+    private MappingJackson2HttpMessageConverter converter;
+    private ObjectWriter pageWriter;
+    private ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        page = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            Player player = BenchmarkContext.randomPlayer(random);
+            player.setId(id);
+            page.add(player);
+        }
+        converter = new MappingJackson2HttpMessageConverter(WebConfig.createObjectMapper(playerSerializer));
+        pageWriter = converter.getObjectMapper().writerFor(converter.getObjectMapper().getTypeFactory()
+                .constructCollectionType(List.class, Player.class));
+        buffer = new ByteArrayOutputStream(256 * pageSize);
+    }
+
+    // what a list response costs today: the Spring converter resolves a writer for every call
+    @Benchmark
+    public byte[] converter() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes();
+    }
+
+    // a writer resolved once and reused, writing into a reused stream
+    @Benchmark
+    public int reusedWriter() throws IOException {
+        buffer.reset();
+        pageWriter.writeValue(buffer, page);
+        return buffer.size();
+    }
+}
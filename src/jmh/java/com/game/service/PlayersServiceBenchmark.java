@@ -0,0 +1,72 @@
+package com.game.service;
+
+import com.game.controller.PlayersPage;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end searches through PlayersService against H2, one fork per table size, with and without the column index.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PlayersServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int players;
+
+    @Param({"NONE", "NAME", "RACE_BANNED", "LEVEL_RANGE", "DEEP_PAGE"})
+    private SearchFilter filter;
+
+    @Param({"false", "true"})
+    private boolean columnIndex;
+
+    private AnnotationConfigWebApplicationContext context;
+    private PlayersService service;
+    private Map<String, String> params;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(players, columnIndex);
+        service = context.getBean(PlayersService.class);
+        params = filter.params();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Player> getPlayers() {
+        return service.getPlayers(params);
+    }
+
+    @Benchmark
+    public int getCount() {
+        return service.getCount(params);
+    }
+
+    @Benchmark
+    public PlayersPage getPage() {
+        return service.getPage(params);
+    }
+}
@@ -0,0 +1,25 @@
+package com.game.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Request parameters of the searches the benchmarks replay.
+public enum SearchFilter {
+    NONE(),
+    NAME("name", "ри"),
+    RACE_BANNED("race", "ELF", "banned", "true", "order", "LEVEL"),
+    LEVEL_RANGE("minLevel", "20", "maxLevel", "30", "order", "NAME"),
+    DEEP_PAGE("pageNumber", "500", "pageSize", "20", "order", "EXPERIENCE");
+
+    private final Map<String, String> params = new HashMap<>();
+
+    SearchFilter(String... pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+    }
+
+    Map<String, String> params() {
+        return new HashMap<>(params);
+    }
+}
@@ -1,13 +1,23 @@
 package com.game.config;
 
+import com.game.metrics.PlayerMetrics;
+import com.game.metrics.PoolMetrics;
+import com.game.metrics.QueryTracer;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -18,19 +28,26 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.util.Properties;
-
-import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import java.util.UUID;
 
 @Configuration
 @EnableTransactionManagement
 @ComponentScan("com.game")
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource({"classpath:db.properties", "classpath:app.properties"})
 public class AppConfig {
 
+    private final Environment environment;
+
+    public AppConfig(Environment environment) {
+        this.environment = environment;
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.game.entity");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -40,28 +57,71 @@ public class AppConfig {
         return em;
     }
 
-    @Profile("prod")
+    // transactions that are served from the caches never run SQL, so they should not borrow a pooled connection;
+    // the tracer sits below the lazy proxy and so only sees connections that are actually used
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource pooledDataSource) {
+        if (!QueryTracer.isEnabled(environment)) {
+            return new LazyConnectionDataSourceProxy(pooledDataSource);
+        }
+        return new LazyConnectionDataSourceProxy(queryTracer().wrap(pooledDataSource));
+    }
+
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+    public QueryTracer queryTracer() {
+        return new QueryTracer(environment.getProperty("trace.slow-query-millis", Long.class, 500L));
+    }
+
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    public HikariDataSource pooledDataSource() {
+        HikariConfig config = poolConfig();
+        config.setDriverClassName(environment.getProperty("db.driver"));
+        config.setJdbcUrl(environment.getProperty("db.url"));
+        config.setUsername(environment.getProperty("db.username"));
+        config.setPassword(environment.getProperty("db.password"));
+        if (environment.getProperty("db.statement-cache.enabled", Boolean.class, true)) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", environment.getProperty("db.statement-cache.size", "250"));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", environment.getProperty("db.statement-cache.sql-limit", "2048"));
+        }
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        return new HikariDataSource(config);
     }
 
     @Profile("dev")
-    @Bean(name = "dataSource")
-    public DataSource dataSourceForTests() {
-
-        return new EmbeddedDatabaseBuilder()
-                .generateUniqueName(true)
-                .setType(H2)
-                .setScriptEncoding("UTF-8")
-                .ignoreFailedDrops(true)
-                .addScript("test.sql")
-                .build();
+    @Bean(name = "pooledDataSource", destroyMethod = "close")
+    public HikariDataSource pooledDataSourceForTests() {
+        HikariConfig config = poolConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return new HikariDataSource(config);
+    }
+
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public PlayerMetrics playerMetrics() {
+        return new PlayerMetrics();
     }
 
     @Bean
@@ -77,9 +137,27 @@ public class AppConfig {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
+    private HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("rpg");
+        config.setMaximumPoolSize(environment.getProperty("db.pool.maximum-pool-size", Integer.class, 10));
+        config.setMinimumIdle(environment.getProperty("db.pool.minimum-idle", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty("db.pool.connection-timeout", Long.class, 30_000L));
+        config.setIdleTimeout(environment.getProperty("db.pool.idle-timeout", Long.class, 600_000L));
+        config.setMaxLifetime(environment.getProperty("db.pool.max-lifetime", Long.class, 1_800_000L));
+        config.setLeakDetectionThreshold(environment.getProperty("db.pool.leak-detection-threshold", Long.class, 0L));
+        config.setRegisterMbeans(environment.getProperty("db.pool.register-mbeans", Boolean.class, false));
+        config.setMetricsTrackerFactory(poolMetrics());
+        return config;
+    }
+
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.jdbc.batch_size", environment.getProperty("batch.jdbc-size", "500"));
+        properties.setProperty("hibernate.order_updates", "true");
+        // pads IN lists to powers of two so the text index candidates do not create a new statement per list length
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
 
         return properties;
     }
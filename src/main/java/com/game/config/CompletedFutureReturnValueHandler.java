@@ -0,0 +1,75 @@
+package com.game.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Writes a future that is already complete on the calling thread, with the handler its value would get after an
+// async dispatch. Every future is complete in synchronous mode, and so is one short-circuited by a 304; neither
+// needs the second pass through the dispatcher. Pending futures go to Spring's DeferredResult handling as before.
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final HandlerMethodReturnValueHandlerComposite delegates = new HandlerMethodReturnValueHandlerComposite();
+
+    public CompletedFutureReturnValueHandler(List<HandlerMethodReturnValueHandler> delegates) {
+        this.delegates.addHandlers(delegates);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            delegates.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            return;
+        }
+        delegates.handleReturnValue(future.join(), new ResultParameter(returnType), mavContainer, webRequest);
+    }
+
+    // the method's return type with the future unwrapped, as Spring describes the result of an async dispatch
+    private static class ResultParameter extends MethodParameter {
+
+        private final Class<?> parameterType;
+        private final Type genericParameterType;
+
+        private ResultParameter(MethodParameter futureType) {
+            super(futureType);
+            ResolvableType resultType = ResolvableType.forMethodParameter(futureType).getGeneric();
+            this.parameterType = resultType.resolve(Object.class);
+            this.genericParameterType = resultType.getType();
+        }
+
+        private ResultParameter(ResultParameter original) {
+            super(original);
+            this.parameterType = original.parameterType;
+            this.genericParameterType = original.genericParameterType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return parameterType;
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return genericParameterType;
+        }
+
+        @Override
+        public ResultParameter clone() {
+            return new ResultParameter(this);
+        }
+    }
+}
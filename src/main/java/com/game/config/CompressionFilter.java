@@ -0,0 +1,307 @@
+package com.game.config;
+
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// Gzips responses once their body outgrows the threshold and the client accepts gzip.
+// Only the first bytes up to the threshold are buffered, so streamed exports are compressed as they are written;
+// flushBuffer() below the threshold sends the response uncompressed: it comes either after a finished small body
+// (Spring flushes every ResponseEntity) or from a stream that must deliver small chunks right away.
+@Component("compressionFilter")
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int minSize;
+
+    public CompressionFilter(Environment environment) {
+        this.enabled = environment.getProperty("compression.enabled", Boolean.class, true);
+        this.minSize = environment.getProperty("compression.min-size", Integer.class, 1024);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "HEAD".equals(request.getMethod());
+    }
+
+    // async requests come back through the filter for their dispatch, which then writes the body
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GzipResponse gzipResponse = WebUtils.getNativeResponse(response, GzipResponse.class);
+        if (gzipResponse == null) {
+            if (isAsyncDispatch(request)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!acceptsGzip(request)) {
+                chain.doFilter(request, response);
+                return;
+            }
+            gzipResponse = new GzipResponse(response);
+        }
+        try {
+            chain.doFilter(request, gzipResponse);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                gzipResponse.finish();
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if ((name.equals("gzip") || name.equals("*")) && !isRefused(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRefused(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private class GzipResponse extends HttpServletResponseWrapper {
+
+        private final ThresholdOutputStream stream = new ThresholdOutputStream();
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        private GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // the length of the compressed body is unknown, so a declared length is held back until the encoding is decided
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.start(false);
+            stream.flush();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            stream.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            stream.reset();
+            contentLength = -1;
+            super.reset();
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+
+        private boolean isCompressible() {
+            int status = getStatus();
+            if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            String contentType = getContentType();
+            if (contentType == null) {
+                return true;
+            }
+            contentType = contentType.toLowerCase(Locale.ROOT);
+            return !(contentType.startsWith("image/") && !contentType.startsWith("image/svg"))
+                    && !contentType.startsWith("audio/") && !contentType.startsWith("video/");
+        }
+
+        private class ThresholdOutputStream extends ServletOutputStream {
+
+            private ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize);
+            private OutputStream target;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (target == null && buffer.size() + 1 > minSize) {
+                    start(true);
+                }
+                if (target == null) {
+                    buffer.write(b);
+                } else {
+                    target.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (target == null && buffer.size() + length > minSize) {
+                    start(true);
+                }
+                if (target == null) {
+                    buffer.write(bytes, offset, length);
+                } else {
+                    target.write(bytes, offset, length);
+                }
+            }
+
+            // buffered bytes stay until the threshold is reached, so the flush every converter ends with does not
+            // decide the encoding of a small body
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            private void start(boolean compress) throws IOException {
+                if (target != null) {
+                    return;
+                }
+                if (compress && isCompressible()) {
+                    GzipResponse.super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    target = new GZIPOutputStream(GzipResponse.super.getOutputStream(), 8192, true);
+                } else {
+                    writeContentLength();
+                    target = GzipResponse.super.getOutputStream();
+                }
+                buffer.writeTo(target);
+                buffer = null;
+            }
+
+            private void finish() throws IOException {
+                if (target == null) {
+                    if (buffer.size() == 0) {
+                        writeContentLength();
+                        return;
+                    }
+                    target = GzipResponse.super.getOutputStream();
+                    GzipResponse.super.setContentLength(buffer.size());
+                    buffer.writeTo(target);
+                    buffer = null;
+                }
+                if (target instanceof GZIPOutputStream) {
+                    ((GZIPOutputStream) target).finish();
+                }
+                target.flush();
+            }
+
+            private void writeContentLength() {
+                if (contentLength >= 0) {
+                    GzipResponse.super.setContentLengthLong(contentLength);
+                }
+            }
+
+            private void reset() {
+                if (target != null) {
+                    throw new IllegalStateException("Response body has already been sent");
+                }
+                buffer.reset();
+            }
+
+            // non-blocking writes are the container's: its stream decides readiness and calls the listener
+            @Override
+            public boolean isReady() {
+                return container().isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                container().setWriteListener(writeListener);
+            }
+
+            private ServletOutputStream container() {
+                try {
+                    return GzipResponse.super.getOutputStream();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.game.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.game.entity.Player;
+
+import java.io.IOException;
+
+// Writes the same JSON as field-visibility reflection, in declaration order and with nulls,
+// but through getters and pre-encoded field names.
+public class PlayerSerializer extends StdSerializer<Player> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString RACE = new SerializedString("race");
+    private static final SerializableString PROFESSION = new SerializedString("profession");
+    private static final SerializableString EXPERIENCE = new SerializedString("experience");
+    private static final SerializableString LEVEL = new SerializedString("level");
+    private static final SerializableString UNTIL_NEXT_LEVEL = new SerializedString("untilNextLevel");
+    private static final SerializableString BIRTHDAY = new SerializedString("birthday");
+    private static final SerializableString BANNED = new SerializedString("banned");
+    private static final SerializableString VERSION = new SerializedString("version");
+
+    public PlayerSerializer() {
+        super(Player.class);
+    }
+
+    @Override
+    public void serialize(Player player, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(player);
+        generator.writeFieldName(ID);
+        if (player.getId() == null) generator.writeNull(); else generator.writeNumber(player.getId());
+        generator.writeFieldName(NAME);
+        generator.writeString(player.getName());
+        generator.writeFieldName(TITLE);
+        generator.writeString(player.getTitle());
+        generator.writeFieldName(RACE);
+        generator.writeString(player.getRace() == null ? null : player.getRace().name());
+        generator.writeFieldName(PROFESSION);
+        generator.writeString(player.getProfession() == null ? null : player.getProfession().name());
+        generator.writeFieldName(EXPERIENCE);
+        if (player.getExperience() == null) generator.writeNull(); else generator.writeNumber(player.getExperience());
+        generator.writeFieldName(LEVEL);
+        if (player.getLevel() == null) generator.writeNull(); else generator.writeNumber(player.getLevel());
+        generator.writeFieldName(UNTIL_NEXT_LEVEL);
+        if (player.getUntilNextLevel() == null) generator.writeNull(); else generator.writeNumber(player.getUntilNextLevel());
+        generator.writeFieldName(BIRTHDAY);
+        if (player.getBirthday() == null) generator.writeNull(); else provider.defaultSerializeDateValue(player.getBirthday(), generator);
+        generator.writeFieldName(BANNED);
+        if (player.getBanned() == null) generator.writeNull(); else generator.writeBoolean(player.getBanned());
+        generator.writeFieldName(VERSION);
+        if (player.getVersion() == null) generator.writeNull(); else generator.writeNumber(player.getVersion());
+        generator.writeEndObject();
+    }
+}
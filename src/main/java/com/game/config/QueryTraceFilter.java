@@ -0,0 +1,63 @@
+package com.game.config;
+
+import com.game.metrics.QueryTrace;
+import com.game.metrics.QueryTracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Opens a QueryTrace per request and keeps it in the ATTRIBUTE request attribute, where tests read it back.
+// PlayersExecutor carries the trace to the worker that runs the request's database work; the statements are
+// logged at DEBUG once the request, or its async dispatch, is done.
+@Component("queryTraceFilter")
+public class QueryTraceFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = QueryTrace.class.getName();
+
+    private static final Logger log = LoggerFactory.getLogger(QueryTraceFilter.class);
+
+    private final boolean enabled;
+    private final int maxStatements;
+
+    public QueryTraceFilter(Environment environment) {
+        this.enabled = QueryTracer.isEnabled(environment);
+        this.maxStatements = environment.getProperty("trace.max-statements", Integer.class, 100);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryTrace trace = (QueryTrace) request.getAttribute(ATTRIBUTE);
+        if (trace == null) {
+            trace = new QueryTrace(maxStatements);
+            request.setAttribute(ATTRIBUTE, trace);
+        }
+        QueryTrace previous = QueryTrace.attach(trace);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryTrace.attach(previous);
+            if (!isAsyncStarted(request) && log.isDebugEnabled()) {
+                log.debug("{} {}: {}", request.getMethod(), request.getRequestURI(), trace);
+            }
+        }
+    }
+}
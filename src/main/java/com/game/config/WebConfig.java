@@ -2,26 +2,48 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.game.entity.Player;
+import com.game.metrics.PlayerMetrics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 
 @Configuration
 @EnableWebMvc
-@ComponentScan("com.game")
+@ComponentScan("com.game.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    private final Environment environment;
+    private final PlayerMetrics playerMetrics;
+
+    public WebConfig(Environment environment, PlayerMetrics playerMetrics) {
+        this.environment = environment;
+        this.playerMetrics = playerMetrics;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -42,11 +64,77 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        return createObjectMapper(environment.getProperty("json.player-serializer.enabled", Boolean.class, true));
+    }
+
+    public static ObjectMapper createObjectMapper(boolean playerSerializer) {
+        return configure(Jackson2ObjectMapperBuilder.json().build(), playerSerializer);
+    }
+
+    // same visibility and serializers as the JSON mapper, only the encoding differs
+    public static ObjectMapper createSmileMapper(boolean playerSerializer) {
+        return configure(Jackson2ObjectMapperBuilder.smile().build(), playerSerializer);
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper, boolean playerSerializer) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        if (playerSerializer) {
+            objectMapper.registerModule(new SimpleModule("player").addSerializer(Player.class, new PlayerSerializer()));
+        }
+        return objectMapper;
+    }
+
+    // ahead of Spring's own handlers, which would send every future through an async dispatch
+    @Bean
+    public static BeanPostProcessor completedFutureReturnValueHandler() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter) {
+                    RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+                    handlers.add(0, new CompletedFutureReturnValueHandler(adapter.getReturnValueHandlers()));
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(environment.getProperty("async.timeout-millis", Long.class, 30_000L));
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper()) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    playerMetrics.recordSerialization(PlayerMetrics.Format.JSON, start);
+                }
+            }
+        });
+        if (environment.getProperty("smile.enabled", Boolean.class, true)) {
+            converters.add(new MappingJackson2SmileHttpMessageConverter(
+                    createSmileMapper(environment.getProperty("json.player-serializer.enabled", Boolean.class, true))) {
+                @Override
+                protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        super.writeInternal(object, type, outputMessage);
+                    } finally {
+                        playerMetrics.recordSerialization(PlayerMetrics.Format.SMILE, start);
+                    }
+                }
+            });
+        }
     }
 }
\ No newline at end of file
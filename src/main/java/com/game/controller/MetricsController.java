@@ -0,0 +1,59 @@
+package com.game.controller;
+
+import com.game.metrics.PlayerMetrics;
+import com.game.metrics.PoolMetrics;
+import com.game.service.PlayerCache;
+import com.game.service.PlayersExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/metrics")
+public class MetricsController {
+    private final PoolMetrics poolMetrics;
+    private final PlayerCache playerCache;
+    private final PlayersExecutor executor;
+    private final PlayerMetrics playerMetrics;
+
+    @Autowired
+    public MetricsController(PoolMetrics poolMetrics, PlayerCache playerCache, PlayersExecutor executor,
+                             PlayerMetrics playerMetrics) {
+        this.poolMetrics = poolMetrics;
+        this.playerCache = playerCache;
+        this.executor = executor;
+        this.playerMetrics = playerMetrics;
+    }
+
+    @GetMapping("/pool")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getPoolMetrics() {
+        return poolMetrics.snapshot();
+    }
+
+    @GetMapping("/cache")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getCacheMetrics() {
+        return playerCache.snapshot();
+    }
+
+    @GetMapping("/executor")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getExecutorMetrics() {
+        return executor.snapshot();
+    }
+
+    // written directly because only the Jackson converters are registered
+    @GetMapping("/prometheus")
+    public void getPrometheusMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        playerMetrics.writePrometheus(response.getWriter());
+    }
+}
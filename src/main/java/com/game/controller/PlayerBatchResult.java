@@ -0,0 +1,29 @@
+package com.game.controller;
+
+public class PlayerBatchResult {
+
+    // the statement ran, but the driver answered Statement.SUCCESS_NO_INFO, so whether it matched the row is unknown
+    public static final int UNKNOWN = 202;
+
+    private final int index;
+    private final int status;
+    private final Long id;
+
+    public PlayerBatchResult(int index, int status, Long id) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,23 @@
+package com.game.controller;
+
+public class PlayerExperienceDelta {
+
+    private Long id;
+    private Integer delta;
+
+    public PlayerExperienceDelta() {
+    }
+
+    public PlayerExperienceDelta(Long id, Integer delta) {
+        this.id = id;
+        this.delta = delta;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+}
@@ -0,0 +1,217 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public enum PlayerFileFormat {
+    NDJSON("application/x-ndjson") {
+        // one generator for the whole stream, so rows are encoded straight into the writer without an interim String
+        @Override
+        public RowWriter open(Writer writer, ObjectWriter playerWriter) throws IOException {
+            JsonGenerator generator = playerWriter.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return new RowWriter() {
+                @Override
+                public void write(Player player) throws IOException {
+                    playerWriter.writeValue(generator, player);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    generator.flush();
+                }
+            };
+        }
+
+        @Override
+        public void read(BufferedReader reader, ObjectMapper objectMapper, RowHandler handler) throws IOException {
+            String line;
+            long row = 0;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Player player;
+                try {
+                    player = objectMapper.readValue(line, Player.class);
+                } catch (JsonProcessingException e) {
+                    handler.rejected(row, e.getOriginalMessage());
+                    continue;
+                }
+                handler.accept(row, player);
+            }
+        }
+    },
+    CSV("text/csv") {
+        @Override
+        public RowWriter open(Writer writer, ObjectWriter playerWriter) throws IOException {
+            writer.write("id,name,title,race,profession,experience,level,untilNextLevel,birthday,banned\n");
+            return new RowWriter() {
+                @Override
+                public void write(Player player) throws IOException {
+                    writer.write(String.valueOf(player.getId()));
+                    writer.write(',');
+                    writer.write(quote(player.getName()));
+                    writer.write(',');
+                    writer.write(quote(player.getTitle()));
+                    writer.write(',');
+                    writer.write(String.valueOf(player.getRace()));
+                    writer.write(',');
+                    writer.write(String.valueOf(player.getProfession()));
+                    writer.write(',');
+                    writer.write(String.valueOf(player.getExperience()));
+                    writer.write(',');
+                    writer.write(String.valueOf(player.getLevel()));
+                    writer.write(',');
+                    writer.write(String.valueOf(player.getUntilNextLevel()));
+                    writer.write(',');
+                    writer.write(player.getBirthday() == null ? "" : String.valueOf(player.getBirthday().getTime()));
+                    writer.write(',');
+                    writer.write(player.getBanned() == null ? "" : String.valueOf(player.getBanned()));
+                    writer.write('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+
+        // the first record names the columns; id, level and untilNextLevel are ignored because the server assigns them
+        @Override
+        public void read(BufferedReader reader, ObjectMapper objectMapper, RowHandler handler) throws IOException {
+            List<String> header = readRecord(reader);
+            if (header == null) {
+                return;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+            List<String> record;
+            long row = 1;
+            while ((record = readRecord(reader)) != null) {
+                row++;
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    continue;
+                }
+                Player player = new Player();
+                try {
+                    String value;
+                    player.setName(field(record, columns, "name"));
+                    player.setTitle(field(record, columns, "title"));
+                    if ((value = field(record, columns, "race")) != null) player.setRace(Race.valueOf(value));
+                    if ((value = field(record, columns, "profession")) != null) player.setProfession(Profession.valueOf(value));
+                    if ((value = field(record, columns, "experience")) != null) player.setExperience(Integer.parseInt(value));
+                    if ((value = field(record, columns, "birthday")) != null) player.setBirthday(new Date(Long.parseLong(value)));
+                    if ((value = field(record, columns, "banned")) != null) player.setBanned(Boolean.parseBoolean(value));
+                } catch (IllegalArgumentException e) {
+                    handler.rejected(row, e.getMessage());
+                    continue;
+                }
+                handler.accept(row, player);
+            }
+        }
+
+        private String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private String field(List<String> record, Map<String, Integer> columns, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+
+        // one RFC 4180 record; quoted fields may contain commas, doubled quotes and line breaks
+        private List<String> readRecord(BufferedReader reader) throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c >= 0) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    };
+
+    private final String contentType;
+
+    PlayerFileFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public abstract RowWriter open(Writer writer, ObjectWriter playerWriter) throws IOException;
+
+    public abstract void read(BufferedReader reader, ObjectMapper objectMapper, RowHandler handler) throws IOException;
+
+    public interface RowWriter {
+
+        void write(Player player) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    public interface RowHandler {
+
+        void accept(long row, Player player);
+
+        void rejected(long row, String reason);
+    }
+}
@@ -0,0 +1,26 @@
+package com.game.controller;
+
+public class PlayerImportResult {
+
+    private final long parsed;
+    private final long imported;
+    private final long rejected;
+
+    public PlayerImportResult(long parsed, long imported, long rejected) {
+        this.parsed = parsed;
+        this.imported = imported;
+        this.rejected = rejected;
+    }
+
+    public long getParsed() {
+        return parsed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+}
@@ -1,55 +1,290 @@
 package com.game.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.game.entity.Player;
+import com.game.exceptions.ParametersNotValidException;
+import com.game.service.PlayerImportProgress;
+import com.game.service.PlayersBatchService;
+import com.game.service.PlayersExecutor;
+import com.game.service.PlayersExperienceService;
+import com.game.service.PlayersImportService;
 import com.game.service.PlayersService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/rest/players")
 public class PlayersController {
     private final PlayersService service;
+    private final PlayersBatchService batchService;
+    private final PlayersImportService importService;
+    private final PlayersExperienceService experienceService;
+    private final PlayersExecutor executor;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter playerWriter;
 
     @Autowired
-    public PlayersController(PlayersService service) {
+    public PlayersController(PlayersService service, PlayersBatchService batchService, PlayersImportService importService,
+                             PlayersExperienceService experienceService, PlayersExecutor executor,
+                             ObjectMapper objectMapper) {
         this.service = service;
+        this.batchService = batchService;
+        this.importService = importService;
+        this.experienceService = experienceService;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.playerWriter = objectMapper.writerFor(Player.class);
     }
 
     @GetMapping()
-    @ResponseStatus(HttpStatus.OK)
-    public List<Player> getPlayersList(@RequestParam Map<String, String> params) {
-        return service.getPlayers(params);
+    public CompletableFuture<ResponseEntity<List<Player>>> getPlayersList(@RequestParam Map<String, String> params,
+                                                                          ServletWebRequest request) {
+        if (isNotModified(request, service.getListTag())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.submit("list", () -> {
+            List<Player> players = service.getPlayers(params);
+            String nextCursor = params.containsKey("cursor") ? service.getNextCursor(params, players) : null;
+            if (nextCursor == null) {
+                return ResponseEntity.ok(players);
+            }
+            return ResponseEntity.ok().header("X-Next-Cursor", nextCursor).body(players);
+        });
     }
 
     @GetMapping("/count")
-    @ResponseStatus(HttpStatus.OK)
-    public int getPlayersCount(@RequestParam Map<String, String> params) {
-        return service.getCount(params);
+    public CompletableFuture<Integer> getPlayersCount(@RequestParam Map<String, String> params, ServletWebRequest request) {
+        if (isNotModified(request, service.getListTag())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.submit("count", () -> service.getCount(params));
+    }
+
+    @GetMapping("/page")
+    public CompletableFuture<PlayersPage> getPlayersPage(@RequestParam Map<String, String> params,
+                                                         ServletWebRequest request) {
+        if (isNotModified(request, service.getListTag())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.submit("page", () -> service.getPage(params));
+    }
+
+    @GetMapping("/export")
+    public void exportPlayers(@RequestParam Map<String, String> params, HttpServletResponse response) throws IOException {
+        PlayerFileFormat format = getFormat(params.get("format"));
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        PlayerFileFormat.RowWriter rows = format.open(response.getWriter(), playerWriter);
+        service.forEachPlayer(params, player -> {
+            try {
+                rows.write(player);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        rows.flush();
+    }
+
+    // answers with NDJSON events: one per rejected row, progress after every batch and a final summary
+    @PostMapping("/import")
+    public void importPlayers(@RequestParam(required = false) String format, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        PlayerFileFormat fileFormat = getFormat(format);
+        response.setContentType(PlayerFileFormat.NDJSON.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        Writer writer = response.getWriter();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            PlayerImportResult result = importService.importPlayers(reader, fileFormat, new PlayerImportProgress() {
+                @Override
+                public void rejected(long row, String reason) {
+                    Map<String, Object> event = new LinkedHashMap<>();
+                    event.put("event", "rejected");
+                    event.put("row", row);
+                    event.put("reason", reason);
+                    writeEvent(writer, event);
+                }
+
+                @Override
+                public void progress(PlayerImportResult result) {
+                    writeEvent(writer, importEvent("progress", result));
+                    try {
+                        writer.flush();
+                        response.flushBuffer();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            writeEvent(writer, importEvent("done", result));
+        } catch (RejectedExecutionException e) {
+            // too many imports at once; nothing has been written yet, so this still becomes a 503
+            throw e;
+        } catch (RuntimeException e) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("event", "failed");
+            event.put("reason", e.getMessage());
+            writeEvent(writer, event);
+        }
+        writer.flush();
     }
 
     @PostMapping()
-    public Player createPlayer(@RequestBody Player player) {
-        return service.create(player);
+    public CompletableFuture<Player> createPlayer(@RequestBody Player player) {
+        return executor.submit("create", () -> service.create(player));
     }
 
-    @GetMapping("/{id}")
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.OK)
-    public Player getPlayer(@PathVariable Long id) {
-        return service.get(id);
+    public CompletableFuture<List<PlayerBatchResult>> createPlayers(@RequestBody List<Player> players) {
+        return executor.submit("batch", () -> batchService.create(players));
+    }
+
+    @PostMapping("/batch/update")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<List<PlayerBatchResult>> updatePlayers(@RequestBody List<Player> players) {
+        return executor.submit("batch/update", () -> batchService.update(players));
+    }
+
+    @PostMapping("/batch/delete")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<List<PlayerBatchResult>> deletePlayers(@RequestBody List<Long> ids) {
+        return executor.submit("batch/delete", () -> batchService.delete(ids));
+    }
+
+    @PostMapping("/batch/experience")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<List<PlayerBatchResult>> grantExperience(@RequestBody List<PlayerExperienceDelta> deltas) {
+        return executor.submit("batch/experience", () -> experienceService.grant(deltas));
+    }
+
+    @PostMapping("/{id}/experience")
+    @ResponseStatus(HttpStatus.OK)
+    public CompletableFuture<Void> grantExperience(@PathVariable Long id, @RequestBody PlayerExperienceDelta delta) {
+        return executor.submit("experience", () -> {
+            experienceService.grant(id, delta.getDelta());
+            return null;
+        });
+    }
+
+    // A revalidation is answered from the version alone, so a 304 never loads the player; otherwise the tag is
+    // checked again when the entity is written. The tag is weak, as it stands for the player in every media type
+    // and content coding.
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Player>> getPlayer(@PathVariable Long id,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                       required = false) String ifNoneMatch) {
+        return executor.submit("get", () -> {
+            if (ifNoneMatch != null) {
+                Long version = service.getVersion(id);
+                if (version != null && matches(ifNoneMatch, playerTag(version))) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .cacheControl(CacheControl.noCache())
+                            .eTag(playerTag(version))
+                            .build();
+                }
+            }
+            Player player = service.get(id);
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(playerTag(player.getVersion()))
+                    .body(player);
+        });
     }
 
     @PostMapping("/{id}")
-    public Player updatePlayer(@PathVariable Long id, @RequestBody Player player) {
-        return service.update(id, player);
+    public CompletableFuture<Player> updatePlayer(@PathVariable Long id, @RequestBody Player player) {
+        return executor.submit("update", () -> service.update(id, player));
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public void deletePlayer(@PathVariable Long id) {
-        service.delete(id);
+    public CompletableFuture<Void> deletePlayer(@PathVariable Long id) {
+        return executor.submit("delete", () -> {
+            service.delete(id);
+            return null;
+        });
+    }
+
+    // the executor's queue is full; the request is shed at once rather than queued behind work it would time out on
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> handleOverload() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(executor.getRetryAfterSeconds()))
+                .build();
+    }
+
+    // the weak tag identifies the data and not its encoding, so caches also have to key on Accept;
+    // no-cache makes browsers revalidate instead of guessing a freshness lifetime
+    private boolean isNotModified(ServletWebRequest request, String etag) {
+        HttpServletResponse response = request.getResponse();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return request.checkNotModified(etag);
+    }
+
+    private static String playerTag(Long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    // the weak comparison If-None-Match calls for: W/ prefixes are ignored on both sides
+    private static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PlayerFileFormat getFormat(String format) {
+        try {
+            return PlayerFileFormat.valueOf(format == null ? "NDJSON" : format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ParametersNotValidException();
+        }
+    }
+
+    private Map<String, Object> importEvent(String name, PlayerImportResult result) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", name);
+        event.put("parsed", result.getParsed());
+        event.put("imported", result.getImported());
+        event.put("rejected", result.getRejected());
+        return event;
+    }
+
+    private void writeEvent(Writer writer, Map<String, Object> event) {
+        try {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,30 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+
+import java.util.List;
+
+public class PlayersPage {
+
+    private final List<Player> players;
+    private final int count;
+    private final String nextCursor;
+
+    public PlayersPage(List<Player> players, int count, String nextCursor) {
+        this.players = players;
+        this.count = count;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
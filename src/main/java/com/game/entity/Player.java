@@ -20,10 +20,28 @@ public class Player {
     private Integer untilNextLevel;
     private Date birthday;
     private Boolean banned;
+    @Version
+    private Long version;
 
     public Player() {
     }
 
+    // used by the list and export queries, which select rows into unmanaged players
+    public Player(Long id, String name, String title, Race race, Profession profession, Integer experience, Integer level,
+                  Integer untilNextLevel, Date birthday, Boolean banned, Long version) {
+        this.id = id;
+        this.name = name;
+        this.title = title;
+        this.race = race;
+        this.profession = profession;
+        this.experience = experience;
+        this.level = level;
+        this.untilNextLevel = untilNextLevel;
+        this.birthday = birthday;
+        this.banned = banned;
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Player{" +
@@ -37,6 +55,7 @@ public class Player {
                 ", untilNextLevel=" + untilNextLevel +
                 ", birthday=" + birthday +
                 ", banned=" + banned +
+                ", version=" + version +
                 '}';
     }
 
@@ -116,4 +135,12 @@ public class Player {
     public void setBanned(Boolean banned) {
         this.banned = banned;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,181 @@
+package com.game.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and size distributions of the PlayersService operations, rendered in the Prometheus text format.
+// Recording neither allocates nor locks: histograms have a fixed range, values above it are clamped,
+// and a filter combination is a bit mask indexing a preallocated counter array.
+public class PlayerMetrics {
+
+    public enum Operation {
+        GET_PLAYERS("getPlayers"), GET_COUNT("getCount"), GET("get"), CREATE("create"), UPDATE("update"), DELETE("delete"),
+        EXPORT("export");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Format {
+        JSON("json"), SMILE("smile");
+
+        private final String label;
+
+        Format(String label) {
+            this.label = label;
+        }
+    }
+
+    // the order of the bits in a filter combination mask
+    private static final String[] FILTERS = {"name", "title", "race", "profession", "after", "before", "banned",
+            "minExperience", "maxExperience", "minLevel", "maxLevel"};
+    private static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long MAX_ROWS = 1_000_000;
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Timer[] operations = timers(Operation.values().length);
+    private final Timer[] queries = timers(Operation.values().length);
+    private final Timer[] serialization = timers(Format.values().length);
+    private final Timer rows = new Timer(MAX_ROWS);
+    private final AtomicLongArray[] filters = filterCounters(Operation.values().length);
+
+    // whole service call, cache hits included
+    public void recordOperation(Operation operation, long startNanos) {
+        operations[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    // database round trip only
+    public void recordQuery(Operation operation, long startNanos) {
+        recordQueryNanos(operation, System.nanoTime() - startNanos);
+    }
+
+    // for operations with several round trips, such as a write's statements and its commit
+    public void recordQueryNanos(Operation operation, long nanos) {
+        queries[operation.ordinal()].record(nanos);
+    }
+
+    // writing a response body, which includes pushing it into the (possibly gzipping) response stream
+    public void recordSerialization(Format format, long startNanos) {
+        serialization[format.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void recordRows(int count) {
+        rows.record(count);
+    }
+
+    public void recordFilters(Operation operation, Map<String, ?> parameters) {
+        int mask = 0;
+        for (int i = 0; i < FILTERS.length; i++) {
+            if (parameters.containsKey(FILTERS[i])) {
+                mask |= 1 << i;
+            }
+        }
+        filters[operation.ordinal()].incrementAndGet(mask);
+    }
+
+    public void writePrometheus(PrintWriter writer) {
+        writeHelp(writer, "players_operation_seconds", "summary", "Time spent in PlayersService operations, cache hits included.");
+        for (Operation operation : Operation.values()) {
+            operations[operation.ordinal()].write(writer, "players_operation_seconds", "operation", operation.label, true);
+        }
+        writeHelp(writer, "players_query_seconds", "summary", "Time spent waiting for the database within an operation, flush and commit of writes included.");
+        for (Operation operation : Operation.values()) {
+            queries[operation.ordinal()].write(writer, "players_query_seconds", "operation", operation.label, true);
+        }
+        writeHelp(writer, "players_serialization_seconds", "summary", "Time spent writing response bodies.");
+        for (Format format : Format.values()) {
+            serialization[format.ordinal()].write(writer, "players_serialization_seconds", "format", format.label, true);
+        }
+        writeHelp(writer, "players_rows_returned", "summary", "Rows returned by list queries that reached the database.");
+        rows.write(writer, "players_rows_returned", "operation", Operation.GET_PLAYERS.label, false);
+        writeHelp(writer, "players_filter_queries_total", "counter", "Searches by filter combination, whether answered by the column index or the database.");
+        for (Operation operation : Operation.values()) {
+            writeFilters(writer, operation, filters[operation.ordinal()]);
+        }
+        writer.flush();
+    }
+
+    private static void writeHelp(PrintWriter writer, String name, String type, String help) {
+        writer.print("# HELP " + name + " " + help + "\n");
+        writer.print("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeFilters(PrintWriter writer, Operation operation, AtomicLongArray counters) {
+        for (int mask = 0; mask < counters.length(); mask++) {
+            long count = counters.get(mask);
+            if (count == 0) {
+                continue;
+            }
+            StringBuilder filters = new StringBuilder();
+            for (int i = 0; i < FILTERS.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    filters.append(filters.length() == 0 ? "" : ",").append(FILTERS[i]);
+                }
+            }
+            writer.print("players_filter_queries_total{operation=\"" + operation.label + "\",filters=\""
+                    + (filters.length() == 0 ? "none" : filters) + "\"} " + count + "\n");
+        }
+    }
+
+    private static AtomicLongArray[] filterCounters(int count) {
+        AtomicLongArray[] counters = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new AtomicLongArray(1 << FILTERS.length);
+        }
+        return counters;
+    }
+
+    private static Timer[] timers(int count) {
+        Timer[] timers = new Timer[count];
+        for (int i = 0; i < count; i++) {
+            timers[i] = new Timer(MAX_NANOS);
+        }
+        return timers;
+    }
+
+    // two significant digits keep a nanosecond histogram up to a minute at about 60 KB, and p999 within 1%
+    private static class Timer {
+        private final long max;
+        private final Histogram histogram;
+        private final LongAdder sum = new LongAdder();
+
+        private Timer(long max) {
+            this.max = max;
+            this.histogram = new ConcurrentHistogram(1, max, 2);
+        }
+
+        private void record(long value) {
+            long clamped = Math.max(0, Math.min(value, max));
+            histogram.recordValue(clamped);
+            sum.add(clamped);
+        }
+
+        private void write(PrintWriter writer, String name, String label, String value, boolean nanos) {
+            Histogram copy = histogram.copy();
+            if (copy.getTotalCount() == 0) {
+                return;
+            }
+            String labels = label + "=\"" + value + "\"";
+            for (double quantile : QUANTILES) {
+                writer.print(name + "{" + labels + ",quantile=\"" + quantile + "\"} "
+                        + format(copy.getValueAtPercentile(quantile * 100), nanos) + "\n");
+            }
+            writer.print(name + "_sum{" + labels + "} " + format(sum.sum(), nanos) + "\n");
+            writer.print(name + "_count{" + labels + "} " + copy.getTotalCount() + "\n");
+        }
+
+        private static String format(long value, boolean nanos) {
+            return nanos ? String.format(Locale.ROOT, "%.9f", value / 1e9) : Long.toString(value);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.game.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireCount.increment();
+                acquireNanos.add(elapsedAcquiredNanos);
+                maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        long count = acquireCount.sum();
+        snapshot.put("pool", poolName);
+        snapshot.put("active", stats == null ? 0 : stats.getActiveConnections());
+        snapshot.put("idle", stats == null ? 0 : stats.getIdleConnections());
+        snapshot.put("total", stats == null ? 0 : stats.getTotalConnections());
+        snapshot.put("max", stats == null ? 0 : stats.getMaxConnections());
+        snapshot.put("waiting", stats == null ? 0 : stats.getPendingThreads());
+        snapshot.put("acquireCount", count);
+        snapshot.put("acquireAvgMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count));
+        snapshot.put("acquireMaxMicros", TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get()));
+        snapshot.put("usageTotalMillis", usageMillis.sum());
+        snapshot.put("timeouts", timeouts.sum());
+        return snapshot;
+    }
+}
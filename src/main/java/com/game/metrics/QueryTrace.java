@@ -0,0 +1,118 @@
+package com.game.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// The statements one HTTP request has run. It is bound to the threads that do the request's database work,
+// so every connection handed out by QueryTracer reports to whichever trace is attached to the calling thread.
+// Past maxStatements only the totals grow, which keeps a bulk import from holding every statement it ran.
+public class QueryTrace {
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+
+    private final int maxStatements;
+    private final List<Statement> statements = new ArrayList<>();
+    private int count;
+    private long nanos;
+
+    public QueryTrace(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public static QueryTrace current() {
+        return CURRENT.get();
+    }
+
+    // returns the trace it replaces, which the caller attaches again when its work is done
+    public static QueryTrace attach(QueryTrace trace) {
+        QueryTrace previous = CURRENT.get();
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+        return previous;
+    }
+
+    synchronized boolean isFull() {
+        return statements.size() >= maxStatements;
+    }
+
+    // statement may be null once the trace is full, as only the totals grow then
+    synchronized void record(Statement statement, long nanos) {
+        count++;
+        this.nanos += nanos;
+        if (statement != null && statements.size() < maxStatements) {
+            statements.add(statement);
+        }
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized long getNanos() {
+        return nanos;
+    }
+
+    public synchronized List<Statement> getStatements() {
+        return Collections.unmodifiableList(new ArrayList<>(statements));
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(count).append(" statements in ").append(millis(nanos)).append(" ms");
+        for (Statement statement : statements) {
+            builder.append("\n  ").append(statement);
+        }
+        if (count > statements.size()) {
+            builder.append("\n  ... ").append(count - statements.size()).append(" more");
+        }
+        return builder.toString();
+    }
+
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    public static class Statement {
+        private final String sql;
+        private final String parameters;
+        private final int batchSize;
+        private final long nanos;
+
+        Statement(String sql, String parameters, int batchSize, long nanos) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchSize = batchSize;
+            this.nanos = nanos;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        // the types bound to the placeholders, e.g. (Long, String, null), never the values
+        public String getParameters() {
+            return parameters;
+        }
+
+        // 0 unless the statement was an executeBatch
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return millis(nanos) + " ms " + sql + " " + parameters + (batchSize > 0 ? " x" + batchSize : "");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.game.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Times every statement that runs through the wrapped data source, reports it to the QueryTrace attached to the
+// calling thread and logs the ones slower than the threshold. Bind parameters are kept as their types only,
+// so neither the trace nor the log ever holds player data.
+public class QueryTracer {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryTracer.class);
+
+    private final long slowNanos;
+
+    public QueryTracer(long slowQueryMillis) {
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    // on for the dev profile (and so for the tests) unless trace.enabled says otherwise, off everywhere else
+    public static boolean isEnabled(Environment environment) {
+        return environment.getProperty("trace.enabled", Boolean.class, environment.acceptsProfiles(Profiles.of("dev")));
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return connection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return connection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement(Statement.class, (Statement) result, null);
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall":
+                    return statement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                default:
+                    return result;
+            }
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, T statement, String preparedSql) {
+        return proxy(type, statement, new InvocationHandler() {
+            private String[] parameters = new String[8];
+            private int parameterCount;
+            private int batchSize;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bind((Integer) args[0], name.equals("setNull") ? "null"
+                            : name.equals("setObject") && args[1] != null ? args[1].getClass().getSimpleName()
+                            : name.substring(3));
+                } else if (name.equals("clearParameters")) {
+                    parameterCount = 0;
+                } else if (name.equals("addBatch")) {
+                    batchSize++;
+                } else if (name.equals("clearBatch")) {
+                    batchSize = 0;
+                } else if (name.startsWith("execute")) {
+                    String sql = preparedSql != null ? preparedSql : args != null ? (String) args[0] : null;
+                    long start = System.nanoTime();
+                    try {
+                        return QueryTracer.invoke(statement, method, args);
+                    } finally {
+                        boolean batch = name.equals("executeBatch") || name.equals("executeLargeBatch");
+                        record(sql, batch ? batchSize : 0, System.nanoTime() - start);
+                        if (batch) {
+                            batchSize = 0;
+                        }
+                    }
+                }
+                return QueryTracer.invoke(statement, method, args);
+            }
+
+            private void bind(int index, String parameterType) {
+                if (index > parameters.length) {
+                    parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+                }
+                parameters[index - 1] = parameterType;
+                parameterCount = Math.max(parameterCount, index);
+            }
+
+            // the statement is only described when it is logged or kept by a trace that still has room
+            private void record(String sql, int batchSize, long nanos) {
+                QueryTrace trace = QueryTrace.current();
+                boolean slow = nanos >= slowNanos;
+                if (trace == null && !slow) {
+                    return;
+                }
+                QueryTrace.Statement traced = slow || !trace.isFull() ? new QueryTrace.Statement(sql,
+                        "(" + String.join(", ", Arrays.asList(parameters).subList(0, parameterCount)) + ")", batchSize, nanos)
+                        : null;
+                if (trace != null) {
+                    trace.record(traced, nanos);
+                }
+                if (slow) {
+                    log.warn("Slow statement: {}", traced);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryTracer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
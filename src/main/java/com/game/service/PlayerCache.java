@@ -0,0 +1,91 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Single players by id. A read that misses loads the row outside the cache, so a write can commit between that load
+// and the insert; every write therefore bumps a stamp for its id first, and a read whose stamp moved meanwhile takes
+// its row out again. Stamps are striped by id, so an unrelated write only costs a rare extra miss.
+@Component
+public class PlayerCache implements PlayerWriteListener {
+
+    private static final int STRIPES = 4096;
+
+    private final Cache<Long, Player> cache;
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+    public PlayerCache(Environment environment) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty("cache.player.maximum-size", Long.class, 100_000L))
+                .expireAfterWrite(environment.getProperty("cache.player.ttl-seconds", Long.class, 60L), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public Player get(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    // taken before the row is read and handed back to putIfUnchanged
+    public long stamp(Long id) {
+        return stamps.get(stripe(id));
+    }
+
+    // A save that committed meanwhile has already put the newer state, so the insert is only if absent. A write that
+    // commits after the insert overwrites or invalidates it; one that committed between the read and the insert has
+    // moved the stamp, and the row read before it is removed again, unless a newer state has replaced it.
+    public void putIfUnchanged(Player player, long stamp) {
+        Long id = player.getId();
+        cache.asMap().putIfAbsent(id, player);
+        if (stamps.get(stripe(id)) != stamp) {
+            cache.asMap().remove(id, player);
+        }
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        stamps.incrementAndGet(stripe(player.getId()));
+        cache.put(player.getId(), player);
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        stamps.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void playerChanged(Long id) {
+        stamps.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void reload() {
+        cache.invalidateAll();
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", cache.estimatedSize());
+        snapshot.put("hits", stats.hitCount());
+        snapshot.put("misses", stats.missCount());
+        snapshot.put("evictions", stats.evictionCount());
+        snapshot.put("hitRate", stats.hitRate());
+        return snapshot;
+    }
+}
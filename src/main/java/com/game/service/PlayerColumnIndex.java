@@ -0,0 +1,551 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The player table in primitive columns, answering getPlayers and getCount without SQL for every filter except
+// the name/title substrings. Each numeric PlayerOrder keeps the live slots sorted by (key, id), so a range filter is
+// a slice of one array and a page is the first matching entries of another; race, profession, banned and liveness
+// are bitsets combined word by word, and further ranges are checked against the int/long columns. NAME order is
+// left to SQL, whose collation (case-insensitive on MySQL) defines it; answering it here would reorder pages and
+// break cursors whenever the service switches between the index and SQL.
+// Writes are applied after commit: saved and deleted players directly, rows changed in place (experience grants)
+// by re-reading them before the next search. Until the first load is done the callers fall back to SQL.
+@Component
+public class PlayerColumnIndex implements PlayerWriteListener {
+
+    private static final String SELECT = "SELECT id, name, title, race, profession, experience, level, untilNextLevel, "
+            + "birthday, banned, version FROM player";
+    private static final Set<String> SUPPORTED = new HashSet<>(Arrays.asList("cursorValue", "cursorId", "race",
+            "profession", "after", "before", "banned", "minExperience", "maxExperience", "minLevel", "maxLevel"));
+    private static final PlayerOrder[] ORDERS = {PlayerOrder.ID, PlayerOrder.EXPERIENCE, PlayerOrder.BIRTHDAY,
+            PlayerOrder.LEVEL};
+    private static final int REFRESH_CHUNK = 1000;
+    private static final RowMapper<Player> ROW = (resultSet, row) -> new Player(resultSet.getLong(1),
+            resultSet.getString(2), resultSet.getString(3), Race.valueOf(resultSet.getString(4)),
+            Profession.valueOf(resultSet.getString(5)), resultSet.getInt(6), resultSet.getInt(7), resultSet.getInt(8),
+            new Date(resultSet.getTimestamp(9).getTime()), resultSet.getBoolean(10), resultSet.getLong(11));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // ids of rows changed in place, with the sequence number of their latest notification
+    private final ConcurrentMap<Long, Long> changed = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private Columns columns = new Columns(0);
+    // writes that arrive while the table is being read; they are replayed onto what was read, non-null only then
+    private List<Player> savedDuringLoad;
+    private Set<Long> deletedDuringLoad;
+    private volatile boolean ready;
+
+    public PlayerColumnIndex(JdbcTemplate jdbcTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = environment.getProperty("search.column-index.enabled", Boolean.class, false);
+    }
+
+    // the table is read in the background; searches use SQL until it is loaded
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup() {
+        if (enabled && !ready) {
+            Thread loader = new Thread(this::reload, "player-column-index");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    // synchronized so that two loads never share the buffers of one another
+    @Override
+    public synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            savedDuringLoad = new ArrayList<>();
+            deletedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Columns loaded;
+        try {
+            List<Player> players = jdbcTemplate.query(SELECT + " ORDER BY id", ROW);
+            loaded = new Columns(players.size());
+            players.forEach(loaded::append);
+            loaded.sort();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                savedDuringLoad = null;
+                deletedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // ids are never reused, so a player deleted during the load stays deleted whatever was saved for it;
+            // the version check in put() drops saved states that the read already saw a newer version of
+            for (Player player : savedDuringLoad) {
+                if (!deletedDuringLoad.contains(player.getId())) {
+                    loaded.put(player, true);
+                }
+            }
+            deletedDuringLoad.forEach(loaded::remove);
+            columns = loaded;
+            savedDuringLoad = null;
+            deletedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                columns.put(player, true);
+            } else if (savedDuringLoad != null) {
+                savedDuringLoad.add(player);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                columns.remove(id);
+            } else if (deletedDuringLoad != null) {
+                deletedDuringLoad.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // batched grants change thousands of rows at once, so they are re-read together by the next search;
+    // ids noted during a load are re-read once it is done, which is harmless if the load already saw the change
+    @Override
+    public void playerChanged(Long id) {
+        changed.put(id, changes.incrementAndGet());
+    }
+
+    // the values are those of PlayerQueryTemplates.getParameters; null when the index cannot answer
+    public List<Player> findPlayers(PlayerOrder order, Map<String, Object> values, int firstResult, int maxResults) {
+        if (order == PlayerOrder.NAME || !canAnswer(values)) {
+            return null;
+        }
+        refreshChanged();
+        lock.readLock().lock();
+        try {
+            return ready ? columns.find(order, values, firstResult, maxResults) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Integer count(Map<String, Object> values) {
+        if (!canAnswer(values)) {
+            return null;
+        }
+        refreshChanged();
+        lock.readLock().lock();
+        try {
+            return ready ? columns.count(values) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean canAnswer(Map<String, Object> values) {
+        return enabled && ready && SUPPORTED.containsAll(values.keySet());
+    }
+
+    // An id leaves the changed set only after its row has been applied, and only if no newer notification came in
+    // meanwhile, so a failed query or a grant racing with the refresh is read again by the next search.
+    // Re-read rows only update players the index still holds: a delete that committed after the SELECT has already
+    // removed the slot and must not be undone.
+    private void refreshChanged() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> pending = new HashMap<>(changed);
+        List<Long> ids = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            List<Player> players = jdbcTemplate.query(SELECT + " WHERE id IN (" + placeholders + ")", ROW, chunk.toArray());
+            Set<Long> missing = new HashSet<>(chunk);
+            lock.writeLock().lock();
+            try {
+                if (!ready) {
+                    return;
+                }
+                for (Player player : players) {
+                    missing.remove(player.getId());
+                    columns.put(player, false);
+                }
+                missing.forEach(columns::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            chunk.forEach(id -> changed.remove(id, pending.get(id)));
+        }
+    }
+
+    // Slots of deleted players are reused for the next ones, so the columns only grow with the number of live players.
+    private static class Columns {
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final BitSet banned = new BitSet();
+        private final BitSet[] races = bitsets(Race.values().length);
+        private final BitSet[] professions = bitsets(Profession.values().length);
+        // indexed by PlayerOrder ordinal; NAME has no permutation
+        private final int[][] sorted = new int[PlayerOrder.values().length][];
+        private Player[] rows;
+        private long[] ids;
+        private byte[] raceOrdinals;
+        private byte[] professionOrdinals;
+        private int[] experience;
+        private int[] levels;
+        private long[] birthdays;
+        private int[] free = new int[16];
+        private int freeCount;
+        private int size;
+        private int liveCount;
+
+        private Columns(int capacity) {
+            capacity = Math.max(capacity, 16);
+            rows = new Player[capacity];
+            ids = new long[capacity];
+            raceOrdinals = new byte[capacity];
+            professionOrdinals = new byte[capacity];
+            experience = new int[capacity];
+            levels = new int[capacity];
+            birthdays = new long[capacity];
+            for (PlayerOrder order : ORDERS) {
+                sorted[order.ordinal()] = new int[capacity];
+            }
+        }
+
+        // loading only: the permutations are built once by sort()
+        private void append(Player player) {
+            int slot = newSlot(player.getId());
+            write(slot, player);
+            for (PlayerOrder order : ORDERS) {
+                sorted[order.ordinal()][liveCount] = slot;
+            }
+            liveCount++;
+        }
+
+        private void sort() {
+            for (PlayerOrder order : ORDERS) {
+                if (order == PlayerOrder.ID) {
+                    continue; // loaded in id order
+                }
+                Integer[] boxed = new Integer[liveCount];
+                for (int i = 0; i < liveCount; i++) {
+                    boxed[i] = sorted[order.ordinal()][i];
+                }
+                Arrays.sort(boxed, (a, b) -> compare(order, a, b));
+                for (int i = 0; i < liveCount; i++) {
+                    sorted[order.ordinal()][i] = boxed[i];
+                }
+            }
+        }
+
+        // an older state that arrives after a newer one is ignored; a player the index does not hold is added only
+        // when insert is set
+        private void put(Player player, boolean insert) {
+            Integer slot = slots.get(player.getId());
+            if (slot == null) {
+                if (!insert) {
+                    return;
+                }
+                slot = newSlot(player.getId());
+            } else if (rows[slot].getVersion() != null && player.getVersion() != null
+                    && rows[slot].getVersion() > player.getVersion()) {
+                return;
+            } else {
+                unlink(slot);
+            }
+            write(slot, player);
+            for (PlayerOrder order : ORDERS) {
+                int[] permutation = sorted[order.ordinal()];
+                int index = -search(order, permutation, slot) - 1;
+                System.arraycopy(permutation, index, permutation, index + 1, liveCount - index);
+                permutation[index] = slot;
+            }
+            liveCount++;
+        }
+
+        private void remove(Long id) {
+            Integer slot = slots.remove(id);
+            if (slot != null) {
+                unlink(slot);
+                rows[slot] = null;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, freeCount * 2);
+                }
+                free[freeCount++] = slot;
+            }
+        }
+
+        private int count(Map<String, Object> values) {
+            return values.isEmpty() ? liveCount : filter(values).cardinality();
+        }
+
+        private List<Player> find(PlayerOrder order, Map<String, Object> values, int firstResult, int maxResults) {
+            BitSet matches = filter(values);
+            int[] permutation = sorted[order.ordinal()];
+            int index = values.containsKey("cursorId") ? seek(order, permutation, values) : 0;
+            List<Player> players = new ArrayList<>(Math.min(maxResults, 64));
+            int skipped = 0;
+            for (; index < liveCount && players.size() < maxResults; index++) {
+                int slot = permutation[index];
+                if (matches.get(slot) && skipped++ >= firstResult) {
+                    players.add(rows[slot]);
+                }
+            }
+            return players;
+        }
+
+        // Candidates start from the narrowest range filter, read off its sorted permutation, or from all live slots;
+        // the bitsets are then and-ed in, and the other ranges are checked only against what is left.
+        private BitSet filter(Map<String, Object> values) {
+            long[] bounds = {bound(values.get("after"), Long.MIN_VALUE), bound(values.get("before"), Long.MAX_VALUE),
+                    bound(values.get("minExperience"), Long.MIN_VALUE), bound(values.get("maxExperience"), Long.MAX_VALUE),
+                    bound(values.get("minLevel"), Long.MIN_VALUE), bound(values.get("maxLevel"), Long.MAX_VALUE)};
+            PlayerOrder[] rangeOrders = {PlayerOrder.BIRTHDAY, PlayerOrder.EXPERIENCE, PlayerOrder.LEVEL};
+            int ranges = 0;
+            int from = 0;
+            int to = -1;
+            PlayerOrder narrowest = null;
+            for (int i = 0; i < rangeOrders.length; i++) {
+                long min = bounds[2 * i];
+                long max = bounds[2 * i + 1];
+                if (min == Long.MIN_VALUE && max == Long.MAX_VALUE) {
+                    continue;
+                }
+                ranges++;
+                int rangeFrom = lowerBound(rangeOrders[i], min);
+                int rangeTo = max == Long.MAX_VALUE ? liveCount : lowerBound(rangeOrders[i], max + 1);
+                if (narrowest == null || rangeTo - rangeFrom < to - from) {
+                    narrowest = rangeOrders[i];
+                    from = rangeFrom;
+                    to = rangeTo;
+                }
+            }
+
+            BitSet matches;
+            if (narrowest == null) {
+                matches = (BitSet) live.clone();
+            } else {
+                matches = new BitSet(size);
+                int[] permutation = sorted[narrowest.ordinal()];
+                for (int i = from; i < to; i++) {
+                    matches.set(permutation[i]);
+                }
+            }
+            Object race = values.get("race");
+            if (race != null) {
+                matches.and(races[((Race) race).ordinal()]);
+            }
+            Object profession = values.get("profession");
+            if (profession != null) {
+                matches.and(professions[((Profession) profession).ordinal()]);
+            }
+            Object isBanned = values.get("banned");
+            if (Boolean.TRUE.equals(isBanned)) {
+                matches.and(banned);
+            } else if (Boolean.FALSE.equals(isBanned)) {
+                matches.andNot(banned);
+            }
+            if (ranges < 2) {
+                return matches;
+            }
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                if (birthdays[slot] < bounds[0] || birthdays[slot] > bounds[1]
+                        || experience[slot] < bounds[2] || experience[slot] > bounds[3]
+                        || levels[slot] < bounds[4] || levels[slot] > bounds[5]) {
+                    matches.clear(slot);
+                }
+            }
+            return matches;
+        }
+
+        private static long bound(Object value, long unbounded) {
+            if (value == null) {
+                return unbounded;
+            }
+            return value instanceof Date ? ((Date) value).getTime() : ((Number) value).longValue();
+        }
+
+        // the first position of a numeric order whose key is at least the value
+        private int lowerBound(PlayerOrder order, long value) {
+            int[] permutation = sorted[order.ordinal()];
+            int low = 0;
+            int high = liveCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (key(order, permutation[middle]) < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private long key(PlayerOrder order, int slot) {
+            switch (order) {
+                case EXPERIENCE:
+                    return experience[slot];
+                case BIRTHDAY:
+                    return birthdays[slot];
+                case LEVEL:
+                    return levels[slot];
+                default:
+                    return ids[slot];
+            }
+        }
+
+        // the first position after the cursor, which is the last player of the previous page
+        private int seek(PlayerOrder order, int[] permutation, Map<String, Object> values) {
+            long cursorId = (Long) values.get("cursorId");
+            long cursorValue = order == PlayerOrder.ID ? cursorId : bound(values.get("cursorValue"), 0);
+            int low = 0;
+            int high = liveCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int slot = permutation[middle];
+                int compared = Long.compare(key(order, slot), cursorValue);
+                if (compared == 0) {
+                    compared = Long.compare(ids[slot], cursorId);
+                }
+                if (compared <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // by the order's key and then by id, as the list queries sort
+        private int compare(PlayerOrder order, int a, int b) {
+            int compared = Long.compare(key(order, a), key(order, b));
+            return compared != 0 ? compared : Long.compare(ids[a], ids[b]);
+        }
+
+        // Arrays.binarySearch contract: the index of the slot, or -(insertion point) - 1
+        private int search(PlayerOrder order, int[] permutation, int slot) {
+            int low = 0;
+            int high = liveCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int compared = compare(order, permutation[middle], slot);
+                if (compared < 0) {
+                    low = middle + 1;
+                } else if (compared > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        // must run while the slot still holds the values it is sorted by
+        private void unlink(int slot) {
+            for (PlayerOrder order : ORDERS) {
+                int[] permutation = sorted[order.ordinal()];
+                int index = search(order, permutation, slot);
+                System.arraycopy(permutation, index + 1, permutation, index, liveCount - index - 1);
+            }
+            liveCount--;
+            live.clear(slot);
+            banned.clear(slot);
+            races[raceOrdinals[slot]].clear(slot);
+            professions[professionOrdinals[slot]].clear(slot);
+        }
+
+        private int newSlot(long id) {
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                if (size == rows.length) {
+                    int capacity = size * 2;
+                    rows = Arrays.copyOf(rows, capacity);
+                    ids = Arrays.copyOf(ids, capacity);
+                    raceOrdinals = Arrays.copyOf(raceOrdinals, capacity);
+                    professionOrdinals = Arrays.copyOf(professionOrdinals, capacity);
+                    experience = Arrays.copyOf(experience, capacity);
+                    levels = Arrays.copyOf(levels, capacity);
+                    birthdays = Arrays.copyOf(birthdays, capacity);
+                    for (PlayerOrder order : ORDERS) {
+                        sorted[order.ordinal()] = Arrays.copyOf(sorted[order.ordinal()], capacity);
+                    }
+                }
+                slot = size++;
+            }
+            slots.put(id, slot);
+            return slot;
+        }
+
+        private void write(int slot, Player player) {
+            rows[slot] = player;
+            ids[slot] = player.getId();
+            raceOrdinals[slot] = (byte) player.getRace().ordinal();
+            professionOrdinals[slot] = (byte) player.getProfession().ordinal();
+            experience[slot] = player.getExperience();
+            levels[slot] = player.getLevel();
+            birthdays[slot] = player.getBirthday().getTime();
+            live.set(slot);
+            banned.set(slot, Boolean.TRUE.equals(player.getBanned()));
+            races[raceOrdinals[slot]].set(slot);
+            professions[professionOrdinals[slot]].set(slot);
+        }
+
+        private static BitSet[] bitsets(int count) {
+            BitSet[] bitsets = new BitSet[count];
+            for (int i = 0; i < count; i++) {
+                bitsets[i] = new BitSet();
+            }
+            return bitsets;
+        }
+    }
+}
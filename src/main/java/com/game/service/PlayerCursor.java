@@ -0,0 +1,79 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.exceptions.ParametersNotValidException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+public class PlayerCursor {
+
+    private final PlayerOrder order;
+    private final Long id;
+    private final Comparable<?> value;
+
+    private PlayerCursor(PlayerOrder order, Long id, Comparable<?> value) {
+        this.order = order;
+        this.id = id;
+        this.value = value;
+    }
+
+    public static PlayerCursor of(PlayerOrder order, Player player) {
+        switch (order) {
+            case NAME:
+                return new PlayerCursor(order, player.getId(), player.getName());
+            case EXPERIENCE:
+                return new PlayerCursor(order, player.getId(), player.getExperience());
+            case BIRTHDAY:
+                return new PlayerCursor(order, player.getId(), player.getBirthday().getTime());
+            case LEVEL:
+                return new PlayerCursor(order, player.getId(), player.getLevel());
+            default:
+                return new PlayerCursor(order, player.getId(), player.getId());
+        }
+    }
+
+    public static PlayerCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", 3);
+            PlayerOrder order = PlayerOrder.valueOf(parts[0]);
+            Long id = Long.parseLong(parts[1]);
+            switch (order) {
+                case NAME:
+                    return new PlayerCursor(order, id, parts[2]);
+                case EXPERIENCE:
+                case LEVEL:
+                    return new PlayerCursor(order, id, Integer.parseInt(parts[2]));
+                case BIRTHDAY:
+                    return new PlayerCursor(order, id, Long.parseLong(parts[2]));
+                default:
+                    return new PlayerCursor(order, id, id);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ParametersNotValidException();
+        }
+    }
+
+    public String encode() {
+        String raw = order.name() + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PlayerOrder getOrder() {
+        return order;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Comparable<?> getValue() {
+        if (order == PlayerOrder.BIRTHDAY) {
+            return new Date((Long) value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.game.service;
+
+import com.game.controller.PlayerImportResult;
+
+public interface PlayerImportProgress {
+
+    void rejected(long row, String reason);
+
+    void progress(PlayerImportResult result);
+}
@@ -0,0 +1,159 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Results of list and count queries keyed by their canonical parameters.
+// Any write bumps the generation, which makes every older entry stale at once. The LRU bound counts both entries
+// and the players they hold, as the page size is the client's choice; a list larger than the whole budget is not kept.
+@Component
+public class PlayerQueryCache implements PlayerWriteListener {
+
+    private static final List<String> SORTED_FILTERS = Arrays.asList("after", "banned", "before", "maxExperience",
+            "maxLevel", "minExperience", "minLevel", "name", "profession", "race", "title");
+    private static final char SEPARATOR = '\u0000';
+
+    private final AtomicLong generation = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maximumSize;
+    private final long maximumPlayers;
+    private long players;
+
+    public PlayerQueryCache(Environment environment) {
+        this.maximumSize = environment.getProperty("cache.query.maximum-size", Integer.class, 10_000);
+        this.maximumPlayers = environment.getProperty("cache.query.maximum-players", Long.class, 100_000L);
+    }
+
+    public String listKey(Map<String, String> params) {
+        StringBuilder key = new StringBuilder("list").append(SEPARATOR);
+        appendFilters(key, params);
+        key.append("order=").append(params.getOrDefault("order", "ID")).append(SEPARATOR);
+        key.append("pageSize=").append(params.getOrDefault("pageSize", "3")).append(SEPARATOR);
+        if (params.containsKey("cursor")) {
+            key.append("cursor=").append(params.get("cursor"));
+        } else {
+            key.append("pageNumber=").append(params.getOrDefault("pageNumber", "0"));
+        }
+        return key.toString();
+    }
+
+    public String countKey(Map<String, String> params) {
+        StringBuilder key = new StringBuilder("count").append(SEPARATOR);
+        appendFilters(key, params);
+        return key.toString();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // the start time tells generations of different runs apart, so a tag never repeats for other data;
+    // weak, because the same tag is sent for every media type and content coding of the list
+    public String etag() {
+        return "W/\"" + epoch + "-" + generation.get() + "\"";
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Player> getList(String key) {
+        return (List<Player>) get(key);
+    }
+
+    public Integer getCount(String key) {
+        return (Integer) get(key);
+    }
+
+    public void put(String key, long generation, Object value) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        int size = value instanceof List ? ((List<?>) value).size() : 0;
+        if (size > maximumPlayers) {
+            return;
+        }
+        synchronized (entries) {
+            CachedResult previous = entries.put(key, new CachedResult(generation, value, size));
+            players += size - (previous == null ? 0 : previous.size);
+            Iterator<CachedResult> eldest = entries.values().iterator();
+            while (entries.size() > maximumSize || players > maximumPlayers) {
+                players -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        invalidate();
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        invalidate();
+    }
+
+    @Override
+    public void playerChanged(Long id) {
+        invalidate();
+    }
+
+    @Override
+    public void reload() {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+            players = 0;
+        }
+    }
+
+    private Object get(String key) {
+        synchronized (entries) {
+            CachedResult cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.generation != generation.get()) {
+                entries.remove(key);
+                players -= cached.size;
+                return null;
+            }
+            return cached.value;
+        }
+    }
+
+    // empty name and title are dropped because the query ignores them
+    private void appendFilters(StringBuilder key, Map<String, String> params) {
+        for (String filter : SORTED_FILTERS) {
+            String value = params.get(filter);
+            if (value == null || value.isEmpty() && (filter.equals("name") || filter.equals("title"))) {
+                continue;
+            }
+            key.append(filter).append('=').append(value).append(SEPARATOR);
+        }
+    }
+
+    private static class CachedResult {
+        private final long generation;
+        private final Object value;
+        // players in a cached list, 0 for a count
+        private final int size;
+
+        private CachedResult(long generation, Object value, int size) {
+            this.generation = generation;
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exceptions.ParametersNotValidException;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// JPQL text for every shape of search: which filters are present, the order and whether a cursor is given.
+// Each shape is rendered once; Hibernate's query plan cache and the driver statement cache are keyed by that text,
+// so a request only binds its values.
+@Component
+public class PlayerQueryTemplates {
+
+    private static final String SELECT = "select new com.game.entity.Player(p.id, p.name, p.title, p.race, p.profession, "
+            + "p.experience, p.level, p.untilNextLevel, p.birthday, p.banned, p.version) from Player p";
+    private static final String COUNT = "select count(p) from Player p";
+    private static final Map<String, String> CONDITIONS = new LinkedHashMap<>();
+
+    static {
+        CONDITIONS.put("name", "p.name like :name");
+        CONDITIONS.put("title", "p.title like :title");
+        CONDITIONS.put("candidates", "p.id in :candidates");
+        CONDITIONS.put("race", "p.race = :race");
+        CONDITIONS.put("profession", "p.profession = :profession");
+        CONDITIONS.put("after", "p.birthday >= :after");
+        CONDITIONS.put("before", "p.birthday <= :before");
+        CONDITIONS.put("banned", "p.banned = :banned");
+        CONDITIONS.put("minExperience", "p.experience >= :minExperience");
+        CONDITIONS.put("maxExperience", "p.experience <= :maxExperience");
+        CONDITIONS.put("minLevel", "p.level >= :minLevel");
+        CONDITIONS.put("maxLevel", "p.level <= :maxLevel");
+    }
+
+    private final PlayerTextIndex textIndex;
+    private final ConcurrentMap<String, String> queries = new ConcurrentHashMap<>();
+
+    public PlayerQueryTemplates(PlayerTextIndex textIndex) {
+        this.textIndex = textIndex;
+    }
+
+    // values to bind, keyed by parameter name; null when the text index already proves that no player matches.
+    // The seek parameters of the cursor are added only when an order is given, that is for list queries.
+    public Map<String, Object> getParameters(Map<String, String> params, PlayerOrder order) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        String cursor = params.get("cursor");
+        if (order != null && cursor != null && !cursor.isEmpty()) {
+            PlayerCursor decoded = PlayerCursor.decode(cursor);
+            if (decoded.getOrder() != order) {
+                throw new ParametersNotValidException();
+            }
+            if (order != PlayerOrder.ID) {
+                values.put("cursorValue", decoded.getValue());
+            }
+            values.put("cursorId", decoded.getId());
+        }
+
+        String name = params.get("name");
+        String title = params.get("title");
+        boolean hasName = name != null && !name.isEmpty();
+        boolean hasTitle = title != null && !title.isEmpty();
+        if (hasName) {
+            values.put("name", "%" + name + "%");
+        }
+        if (hasTitle) {
+            values.put("title", "%" + title + "%");
+        }
+        if (hasName || hasTitle) {
+            List<Long> candidates = textIndex.findCandidates(hasName ? name : null, hasTitle ? title : null);
+            if (candidates != null) {
+                if (candidates.isEmpty()) {
+                    return null;
+                }
+                values.put("candidates", candidates);
+            }
+        }
+        if (params.get("race") != null) {
+            values.put("race", Race.valueOf(params.get("race")));
+        }
+        if (params.get("profession") != null) {
+            values.put("profession", Profession.valueOf(params.get("profession")));
+        }
+        if (params.get("after") != null) {
+            values.put("after", new Date(Long.parseLong(params.get("after"))));
+        }
+        if (params.get("before") != null) {
+            values.put("before", new Date(Long.parseLong(params.get("before"))));
+        }
+        if (params.get("banned") != null) {
+            values.put("banned", Boolean.parseBoolean(params.get("banned")));
+        }
+        if (params.get("minExperience") != null) {
+            values.put("minExperience", Integer.parseInt(params.get("minExperience")));
+        }
+        if (params.get("maxExperience") != null) {
+            values.put("maxExperience", Integer.parseInt(params.get("maxExperience")));
+        }
+        if (params.get("minLevel") != null) {
+            values.put("minLevel", Integer.parseInt(params.get("minLevel")));
+        }
+        if (params.get("maxLevel") != null) {
+            values.put("maxLevel", Integer.parseInt(params.get("maxLevel")));
+        }
+        return values;
+    }
+
+    public String listQuery(PlayerOrder order, Set<String> parameters) {
+        return queries.computeIfAbsent("list " + order + " " + parameters, key -> {
+            StringBuilder query = new StringBuilder(SELECT);
+            appendWhere(query, parameters, order);
+            if (order == PlayerOrder.ID) {
+                query.append(" order by p.id");
+            } else {
+                query.append(" order by p.").append(order.getFieldName()).append(", p.id");
+            }
+            return query.toString();
+        });
+    }
+
+    public String countQuery(Set<String> parameters) {
+        return queries.computeIfAbsent("count " + parameters, key -> {
+            StringBuilder query = new StringBuilder(COUNT);
+            appendWhere(query, parameters, null);
+            return query.toString();
+        });
+    }
+
+    private void appendWhere(StringBuilder query, Set<String> parameters, PlayerOrder order) {
+        String separator = " where ";
+        if (parameters.contains("cursorValue")) {
+            String field = "p." + order.getFieldName();
+            query.append(separator).append(field).append(" >= :cursorValue and (").append(field)
+                    .append(" > :cursorValue or p.id > :cursorId)");
+            separator = " and ";
+        } else if (parameters.contains("cursorId")) {
+            query.append(separator).append("p.id > :cursorId");
+            separator = " and ";
+        }
+        for (Map.Entry<String, String> condition : CONDITIONS.entrySet()) {
+            if (parameters.contains(condition.getKey())) {
+                query.append(separator).append(condition.getValue());
+                separator = " and ";
+            }
+        }
+    }
+}
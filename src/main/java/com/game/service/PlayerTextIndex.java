@@ -0,0 +1,207 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Bigram postings for name and title. Lookups return a superset of the matching ids:
+// grams of overwritten values are never removed, so the LIKE predicate still has the final say.
+@Component
+public class PlayerTextIndex implements PlayerWriteListener {
+
+    private static final int GRAM = 2;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxCandidates;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, RoaringBitmap> nameGrams = new HashMap<>();
+    private Map<String, RoaringBitmap> titleGrams = new HashMap<>();
+    private RoaringBitmap live = new RoaringBitmap();
+    // writes that arrive while the table is being read; they are replayed onto what was read, non-null only then
+    private List<Player> savedDuringLoad;
+    private Set<Long> deletedDuringLoad;
+    private volatile boolean ready;
+
+    public PlayerTextIndex(JdbcTemplate jdbcTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = environment.getProperty("search.text-index.enabled", Boolean.class, true);
+        this.maxCandidates = environment.getProperty("search.text-index.max-candidates", Integer.class, 1000);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup() {
+        if (enabled && !ready) {
+            reload();
+        }
+    }
+
+    // synchronized so that two loads never share the buffers of one another
+    @Override
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            savedDuringLoad = new ArrayList<>();
+            deletedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<String, RoaringBitmap> names = new HashMap<>();
+        Map<String, RoaringBitmap> titles = new HashMap<>();
+        RoaringBitmap ids = new RoaringBitmap();
+        try {
+            jdbcTemplate.query("SELECT id, name, title FROM player", resultSet -> {
+                int id = (int) resultSet.getLong(1);
+                ids.add(id);
+                addGrams(names, resultSet.getString(2), id);
+                addGrams(titles, resultSet.getString(3), id);
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                savedDuringLoad = null;
+                deletedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // extra grams only widen the candidates, and ids are never reused, so saves may be replayed before deletes
+            for (Player player : savedDuringLoad) {
+                add(names, titles, ids, player);
+            }
+            deletedDuringLoad.forEach(id -> ids.remove(id.intValue()));
+            nameGrams = names;
+            titleGrams = titles;
+            live = ids;
+            savedDuringLoad = null;
+            deletedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        lock.writeLock().lock();
+        try {
+            add(nameGrams, titleGrams, live, player);
+            if (savedDuringLoad != null) {
+                savedDuringLoad.add(player);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        lock.writeLock().lock();
+        try {
+            live.remove(id.intValue());
+            if (deletedDuringLoad != null) {
+                deletedDuringLoad.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // only name and title are indexed, and statements that change a row in place never touch them
+    @Override
+    public void playerChanged(Long id) {
+    }
+
+    // null means the index cannot narrow the search and the caller should rely on LIKE alone;
+    // so does a LIKE wildcard or escape in the input, whose grams would be looked up as literal text
+    public List<Long> findCandidates(String name, String title) {
+        if (!enabled || !ready || hasWildcards(name) || hasWildcards(title)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = intersect(null, nameGrams, name);
+            candidates = intersect(candidates, titleGrams, title);
+            if (candidates == null) {
+                return null;
+            }
+            candidates.and(live);
+            if (candidates.getLongCardinality() > maxCandidates) {
+                return null;
+            }
+            List<Long> ids = new ArrayList<>(candidates.getCardinality());
+            candidates.forEach((int id) -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap intersect(RoaringBitmap candidates, Map<String, RoaringBitmap> grams, String text) {
+        if (text == null) {
+            return candidates;
+        }
+        String normalized = normalize(text);
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            RoaringBitmap posting = grams.get(normalized.substring(i, i + GRAM));
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            if (candidates == null) {
+                candidates = posting.clone();
+            } else {
+                candidates.and(posting);
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean hasWildcards(String text) {
+        return text != null && (text.indexOf('%') >= 0 || text.indexOf('_') >= 0 || text.indexOf('\\') >= 0);
+    }
+
+    private static void add(Map<String, RoaringBitmap> names, Map<String, RoaringBitmap> titles, RoaringBitmap ids,
+                            Player player) {
+        int id = player.getId().intValue();
+        ids.add(id);
+        addGrams(names, player.getName(), id);
+        addGrams(titles, player.getTitle(), id);
+    }
+
+    private static void addGrams(Map<String, RoaringBitmap> grams, String text, int id) {
+        if (text == null) {
+            return;
+        }
+        String normalized = normalize(text);
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.computeIfAbsent(normalized.substring(i, i + GRAM), gram -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    // folds case and diacritics so the postings are a superset for case- and accent-insensitive collations
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("");
+    }
+}
@@ -0,0 +1,15 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+public interface PlayerWriteListener {
+
+    void playerSaved(Player player);
+
+    void playerDeleted(Long id);
+
+    // a statement changed the row in the database without loading the player
+    void playerChanged(Long id);
+
+    void reload();
+}
@@ -0,0 +1,233 @@
+package com.game.service;
+
+import com.game.controller.PlayerBatchResult;
+import com.game.entity.Player;
+import com.game.exceptions.ParametersNotValidException;
+import com.game.repository.PlayerRepository;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bulk writes. Every chunk of batch.chunk-size items is one transaction, sent in JDBC batches of batch.jdbc-size.
+// Inserts go through JdbcTemplate because IDENTITY ids keep Hibernate from batching them.
+@Service
+public class PlayersBatchService {
+
+    private static final String INSERT = "INSERT INTO player (name, title, race, profession, birthday, banned, "
+            + "experience, level, untilNextLevel) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM player WHERE id = ?";
+
+    private final PlayersService playersService;
+    private final PlayerRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<PlayerWriteListener> writeListeners;
+    private final int jdbcBatchSize;
+    private final int chunkSize;
+
+    public PlayersBatchService(PlayersService playersService, PlayerRepository repository, JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager, List<PlayerWriteListener> writeListeners,
+                               Environment environment) {
+        this.playersService = playersService;
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeListeners = writeListeners;
+        this.jdbcBatchSize = environment.getProperty("batch.jdbc-size", Integer.class, 500);
+        this.chunkSize = environment.getProperty("batch.chunk-size", Integer.class, 5000);
+    }
+
+    public List<PlayerBatchResult> create(List<Player> players) {
+        PlayerBatchResult[] results = new PlayerBatchResult[players.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player == null || !isValid(player)) {
+                results[i] = new PlayerBatchResult(i, 400, null);
+            } else {
+                player.calcLevel();
+                valid.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(valid)) {
+            List<Player> chunkPlayers = new ArrayList<>(chunk.size());
+            chunk.forEach(i -> chunkPlayers.add(players.get(i)));
+            insertChunk(chunkPlayers);
+            for (int i : chunk) {
+                results[i] = new PlayerBatchResult(i, 200, players.get(i).getId());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // updates are flushed by Hibernate, which batches them through hibernate.jdbc.batch_size
+    public List<PlayerBatchResult> update(List<Player> players) {
+        PlayerBatchResult[] results = new PlayerBatchResult[players.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player == null || player.getId() == null || player.getId() < 1) {
+                results[i] = new PlayerBatchResult(i, 400, null);
+            } else {
+                valid.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(valid)) {
+            List<Player> saved = new ArrayList<>(chunk.size());
+            try {
+                transactionTemplate.execute(status -> {
+                    List<Long> ids = new ArrayList<>(chunk.size());
+                    chunk.forEach(i -> ids.add(players.get(i).getId()));
+                    Map<Long, Player> existing = new HashMap<>();
+                    repository.findAllById(ids).forEach(player -> existing.put(player.getId(), player));
+
+                    for (int i : chunk) {
+                        Player changes = players.get(i);
+                        Player playerUp = existing.get(changes.getId());
+                        if (playerUp == null) {
+                            results[i] = new PlayerBatchResult(i, 404, changes.getId());
+                            continue;
+                        }
+                        if (changes.getVersion() != null && !changes.getVersion().equals(playerUp.getVersion())) {
+                            results[i] = new PlayerBatchResult(i, 409, changes.getId());
+                            continue;
+                        }
+                        Player merged = new Player();
+                        playersService.applyChanges(merged, playerUp);
+                        playersService.applyChanges(merged, changes);
+                        if (!isValid(merged)) {
+                            results[i] = new PlayerBatchResult(i, 400, changes.getId());
+                            continue;
+                        }
+                        playersService.applyChanges(playerUp, changes);
+                        playerUp.calcLevel();
+                        results[i] = new PlayerBatchResult(i, 200, playerUp.getId());
+                        saved.add(playerUp);
+                    }
+                    return null;
+                });
+            } catch (OptimisticLockingFailureException e) {
+                // another writer changed a row of this chunk between the read and the commit; nothing was written
+                for (int i : chunk) {
+                    if (results[i].getStatus() == 200) {
+                        results[i] = new PlayerBatchResult(i, 409, results[i].getId());
+                    }
+                }
+                saved.clear();
+            }
+            saved.forEach(player -> writeListeners.forEach(listener -> listener.playerSaved(player)));
+        }
+        return Arrays.asList(results);
+    }
+
+    public List<PlayerBatchResult> delete(List<Long> ids) {
+        PlayerBatchResult[] results = new PlayerBatchResult[ids.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null || id < 1) {
+                results[i] = new PlayerBatchResult(i, 400, id);
+            } else {
+                valid.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(valid)) {
+            List<Long> chunkIds = new ArrayList<>(chunk.size());
+            chunk.forEach(i -> chunkIds.add(ids.get(i)));
+            int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(DELETE, chunkIds, jdbcBatchSize,
+                    (statement, id) -> statement.setLong(1, id)));
+            for (int k = 0; k < chunk.size(); k++) {
+                int i = chunk.get(k);
+                Long id = ids.get(i);
+                int count = counts[k / jdbcBatchSize][k % jdbcBatchSize];
+                if (count == 0) {
+                    results[i] = new PlayerBatchResult(i, 404, id);
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    // drivers that rewrite batches may answer this instead of a row count: the row is gone either
+                    // way, but it may never have existed
+                    results[i] = new PlayerBatchResult(i, PlayerBatchResult.UNKNOWN, id);
+                    writeListeners.forEach(listener -> listener.playerDeleted(id));
+                } else {
+                    results[i] = new PlayerBatchResult(i, 200, id);
+                    writeListeners.forEach(listener -> listener.playerDeleted(id));
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // inserts already validated players in one transaction and assigns their generated ids
+    void insertChunk(List<Player> players) {
+        transactionTemplate.execute(status -> insert(players));
+        players.forEach(player -> writeListeners.forEach(listener -> listener.playerSaved(player)));
+    }
+
+    private Void insert(List<Player> players) {
+        return jdbcTemplate.execute(connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                (PreparedStatement statement) -> {
+                    for (List<Player> batch : partition(players, jdbcBatchSize)) {
+                        for (Player player : batch) {
+                            statement.setString(1, player.getName());
+                            statement.setString(2, player.getTitle());
+                            statement.setString(3, player.getRace().name());
+                            statement.setString(4, player.getProfession().name());
+                            statement.setDate(5, new Date(player.getBirthday().getTime()));
+                            statement.setObject(6, player.getBanned(), Types.BOOLEAN);
+                            statement.setInt(7, player.getExperience());
+                            statement.setInt(8, player.getLevel());
+                            statement.setInt(9, player.getUntilNextLevel());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                        try (ResultSet keys = statement.getGeneratedKeys()) {
+                            for (Player player : batch) {
+                                if (!keys.next()) {
+                                    throw new IllegalStateException("Driver returned fewer generated keys than inserted rows");
+                                }
+                                player.setId(keys.getLong(1));
+                                player.setVersion(0L);
+                            }
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    private boolean isValid(Player player) {
+        try {
+            playersService.validatePlayer(player);
+            return true;
+        } catch (ParametersNotValidException e) {
+            return false;
+        }
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        return partition(indexes, chunkSize);
+    }
+
+    static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> parts = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            parts.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return parts;
+    }
+}
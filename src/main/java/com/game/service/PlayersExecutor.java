@@ -0,0 +1,112 @@
+package com.game.service;
+
+import com.game.metrics.QueryTrace;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs the database work of REST requests off the servlet threads. There are as many workers as pooled connections,
+// because more would only wait for one, and a bounded queue in front of them: a full queue rejects the request
+// instead of letting waiting requests pile up. With async.enabled=false the work runs on the calling thread.
+@Component
+public class PlayersExecutor implements DisposableBean {
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public PlayersExecutor(Environment environment) {
+        this.enabled = environment.getProperty("async.enabled", Boolean.class, true);
+        int threads = environment.getProperty("async.threads", Integer.class,
+                environment.getProperty("db.pool.maximum-pool-size", Integer.class, 10));
+        int queueCapacity = environment.getProperty("async.queue-capacity", Integer.class, 500);
+        this.retryAfterSeconds = environment.getProperty("async.retry-after-seconds", Long.class, 1L);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "players-db-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // throws RejectedExecutionException when the queue is full
+    public <T> CompletableFuture<T> submit(String endpoint, Supplier<T> work) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, name -> new EndpointStats());
+        if (!enabled) {
+            T result = work.get();
+            endpointStats.completed.increment();
+            return CompletableFuture.completedFuture(result);
+        }
+        QueryTrace trace = QueryTrace.current();
+        endpointStats.queued.incrementAndGet();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                endpointStats.queued.decrementAndGet();
+                endpointStats.active.incrementAndGet();
+                QueryTrace previous = QueryTrace.attach(trace);
+                try {
+                    return work.get();
+                } finally {
+                    QueryTrace.attach(previous);
+                    endpointStats.active.decrementAndGet();
+                    endpointStats.completed.increment();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            endpointStats.queued.decrementAndGet();
+            endpointStats.rejected.increment();
+            throw e;
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("threads", executor.getMaximumPoolSize());
+        snapshot.put("active", executor.getActiveCount());
+        snapshot.put("queued", executor.getQueue().size());
+        snapshot.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("queued", endpointStats.queued.get());
+            values.put("active", endpointStats.active.get());
+            values.put("completed", endpointStats.completed.sum());
+            values.put("rejected", endpointStats.rejected.sum());
+            endpoints.put(endpoint, values);
+        });
+        snapshot.put("endpoints", endpoints);
+        return snapshot;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static class EndpointStats {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+    }
+}
@@ -0,0 +1,157 @@
+package com.game.service;
+
+import com.game.controller.PlayerBatchResult;
+import com.game.controller.PlayerExperienceDelta;
+import com.game.exceptions.IdNotFoundException;
+import com.game.exceptions.IdNotValidException;
+import com.game.exceptions.ParametersNotValidException;
+import com.game.repository.PlayerRepository;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Experience grants as one conditional UPDATE per player. The database adds the delta to the current row and derives
+// level and untilNextLevel the way Player.calcLevel() does, so concurrent grants add up without reading the player.
+@Service
+public class PlayersExperienceService {
+
+    private static final int MAX_EXPERIENCE = 10_000_000;
+    private static final String LEVEL = "FLOOR((SQRT(2500 + 200 * (experience + ?)) - 50) / 100)";
+    // experience is assigned last: MySQL evaluates assignments left to right against the new values and H2 against
+    // the old ones, so every expression reads only columns that are still unchanged
+    private static final String GRANT = "UPDATE player SET level = " + LEVEL
+            + ", untilNextLevel = 50 * (" + LEVEL + " + 1) * (" + LEVEL + " + 2) - (experience + ?)"
+            + ", version = version + 1, experience = experience + ?"
+            + " WHERE id = ? AND experience + ? BETWEEN 0 AND " + MAX_EXPERIENCE;
+
+    private final PlayerRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<PlayerWriteListener> writeListeners;
+    private final int jdbcBatchSize;
+    private final int chunkSize;
+
+    public PlayersExperienceService(PlayerRepository repository, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    List<PlayerWriteListener> writeListeners, Environment environment) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeListeners = writeListeners;
+        this.jdbcBatchSize = environment.getProperty("batch.jdbc-size", Integer.class, 500);
+        this.chunkSize = environment.getProperty("batch.chunk-size", Integer.class, 5000);
+    }
+
+    public void grant(Long id, Integer delta) {
+        if (id < 1) {
+            throw new IdNotValidException();
+        }
+        if (delta == null || !isInRange(delta)) {
+            throw new ParametersNotValidException();
+        }
+        if (jdbcTemplate.update(GRANT, statement -> bind(statement, id, delta)) == 0) {
+            // nothing matched: either the player is gone or the new experience would leave the allowed range
+            if (!repository.existsById(id)) {
+                throw new IdNotFoundException();
+            }
+            throw new ParametersNotValidException();
+        }
+        writeListeners.forEach(listener -> listener.playerChanged(id));
+    }
+
+    // repeated ids are summed into one statement; ids are sorted so concurrent batches lock rows in the same order
+    public List<PlayerBatchResult> grant(List<PlayerExperienceDelta> deltas) {
+        PlayerBatchResult[] results = new PlayerBatchResult[deltas.size()];
+        TreeMap<Long, Long> totals = new TreeMap<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            PlayerExperienceDelta delta = deltas.get(i);
+            if (delta == null || delta.getId() == null || delta.getId() < 1 || delta.getDelta() == null) {
+                results[i] = new PlayerBatchResult(i, 400, delta == null ? null : delta.getId());
+            } else {
+                totals.merge(delta.getId(), (long) delta.getDelta(), Long::sum);
+            }
+        }
+
+        Map<Long, Integer> statuses = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        totals.forEach((id, total) -> {
+            if (isInRange(total)) {
+                ids.add(id);
+            } else {
+                statuses.put(id, 400);
+            }
+        });
+        for (List<Long> chunk : PlayersBatchService.partition(ids, chunkSize)) {
+            int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(GRANT, chunk, jdbcBatchSize,
+                    (statement, id) -> bind(statement, id, totals.get(id))));
+            List<Long> unchanged = new ArrayList<>();
+            List<Long> unreported = new ArrayList<>();
+            for (int k = 0; k < chunk.size(); k++) {
+                Long id = chunk.get(k);
+                int count = counts[k / jdbcBatchSize][k % jdbcBatchSize];
+                if (count == 0) {
+                    unchanged.add(id);
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    // drivers that rewrite batches may answer this instead of a row count
+                    unreported.add(id);
+                } else {
+                    statuses.put(id, 200);
+                    writeListeners.forEach(listener -> listener.playerChanged(id));
+                }
+            }
+            if (!unchanged.isEmpty() || !unreported.isEmpty()) {
+                List<Long> recheck = new ArrayList<>(unchanged);
+                recheck.addAll(unreported);
+                Set<Long> existing = new HashSet<>();
+                repository.findAllById(recheck).forEach(player -> existing.add(player.getId()));
+                unchanged.forEach(id -> statuses.put(id, existing.contains(id) ? 400 : 404));
+                // a missing player was certainly not changed; for one that exists the grant may or may not have
+                // applied, and re-reading it in the listeners is harmless either way
+                for (Long id : unreported) {
+                    if (existing.contains(id)) {
+                        statuses.put(id, PlayerBatchResult.UNKNOWN);
+                        writeListeners.forEach(listener -> listener.playerChanged(id));
+                    } else {
+                        statuses.put(id, 404);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < deltas.size(); i++) {
+            if (results[i] == null) {
+                Long id = deltas.get(i).getId();
+                results[i] = new PlayerBatchResult(i, statuses.get(id), id);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static boolean isInRange(long delta) {
+        return delta >= -MAX_EXPERIENCE && delta <= MAX_EXPERIENCE;
+    }
+
+    private static void bind(PreparedStatement statement, long id, long delta) throws SQLException {
+        statement.setLong(1, delta);
+        statement.setLong(2, delta);
+        statement.setLong(3, delta);
+        statement.setLong(4, delta);
+        statement.setLong(5, delta);
+        statement.setLong(6, id);
+        statement.setLong(7, delta);
+    }
+}
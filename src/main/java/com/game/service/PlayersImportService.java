@@ -0,0 +1,180 @@
+package com.game.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.PlayerFileFormat;
+import com.game.controller.PlayerImportResult;
+import com.game.entity.Player;
+import com.game.exceptions.ParametersNotValidException;
+import com.game.metrics.QueryTrace;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Parses and validates on the calling thread while a writer thread inserts the previous batches.
+// The queue between them is bounded, so a slow database throttles the parser instead of filling the heap.
+// At most import.max-concurrent imports run at once; one more is rejected with RejectedExecutionException
+// before any row is read, rather than taking another connection and writer thread.
+@Service
+public class PlayersImportService implements DisposableBean {
+
+    private static final List<Player> END = Collections.emptyList();
+
+    private final PlayersService playersService;
+    private final PlayersBatchService batchService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final ExecutorService writers;
+
+    public PlayersImportService(PlayersService playersService, PlayersBatchService batchService, ObjectMapper objectMapper,
+                                Environment environment) {
+        this.playersService = playersService;
+        this.batchService = batchService;
+        this.objectMapper = objectMapper;
+        this.batchSize = environment.getProperty("import.batch-size", Integer.class, 1000);
+        this.queueCapacity = environment.getProperty("import.queue-capacity", Integer.class, 4);
+        int maxConcurrent = environment.getProperty("import.max-concurrent", Integer.class, 2);
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = new ThreadPoolExecutor(0, maxConcurrent, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+            Thread thread = new Thread(task, "player-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public PlayerImportResult importPlayers(BufferedReader reader, PlayerFileFormat format, PlayerImportProgress progress)
+            throws IOException {
+        Pipeline pipeline = new Pipeline(progress);
+        boolean completed = false;
+        try {
+            format.read(reader, objectMapper, pipeline);
+            pipeline.finish();
+            completed = true;
+        } finally {
+            if (!completed) {
+                pipeline.writer.cancel(true);
+            }
+        }
+        return pipeline.result();
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdownNow();
+    }
+
+    private class Pipeline implements PlayerFileFormat.RowHandler {
+
+        private final PlayerImportProgress progress;
+        private final BlockingQueue<List<Player>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicLong imported = new AtomicLong();
+        private final Future<?> writer;
+        private List<Player> batch = new ArrayList<>(batchSize);
+        private long parsed;
+        private long rejected;
+
+        private Pipeline(PlayerImportProgress progress) {
+            this.progress = progress;
+            QueryTrace trace = QueryTrace.current();
+            this.writer = writers.submit(() -> {
+                QueryTrace previous = QueryTrace.attach(trace);
+                try {
+                    List<Player> next;
+                    while ((next = queue.take()) != END) {
+                        batchService.insertChunk(next);
+                        imported.addAndGet(next.size());
+                    }
+                    return null;
+                } finally {
+                    QueryTrace.attach(previous);
+                }
+            });
+        }
+
+        @Override
+        public void accept(long row, Player player) {
+            parsed++;
+            try {
+                playersService.validatePlayer(player);
+            } catch (ParametersNotValidException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+            player.setId(null);
+            player.calcLevel();
+            batch.add(player);
+            if (batch.size() == batchSize) {
+                enqueue(batch);
+                batch = new ArrayList<>(batchSize);
+                progress.progress(result());
+            }
+        }
+
+        @Override
+        public void rejected(long row, String reason) {
+            parsed++;
+            reject(row, reason);
+        }
+
+        private void reject(long row, String reason) {
+            rejected++;
+            progress.rejected(row, reason);
+        }
+
+        private void finish() {
+            if (!batch.isEmpty()) {
+                enqueue(batch);
+            }
+            enqueue(END);
+            awaitWriter();
+        }
+
+        private PlayerImportResult result() {
+            return new PlayerImportResult(parsed, imported.get(), rejected);
+        }
+
+        // a failed writer stops taking batches, so the parser checks on it instead of waiting forever
+        private void enqueue(List<Player> next) {
+            try {
+                while (!queue.offer(next, 100, TimeUnit.MILLISECONDS)) {
+                    if (writer.isDone()) {
+                        awaitWriter();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Player import interrupted", e);
+            }
+        }
+
+        private void awaitWriter() {
+            try {
+                writer.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Player import interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Player import failed", e.getCause());
+            }
+        }
+    }
+}
@@ -1,149 +1,435 @@
 package com.game.service;
 
 import com.game.controller.PlayerOrder;
+import com.game.controller.PlayersPage;
 import com.game.entity.Player;
-import com.game.entity.Profession;
-import com.game.entity.Race;
 import com.game.exceptions.IdNotFoundException;
 import com.game.exceptions.IdNotValidException;
 import com.game.exceptions.ParametersNotValidException;
+import com.game.exceptions.VersionConflictException;
+import com.game.metrics.PlayerMetrics;
+import com.game.metrics.PlayerMetrics.Operation;
 import com.game.repository.PlayerRepository;
-import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
+import javax.persistence.TypedQuery;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class PlayersService {
 
+    private static final String DELETE = "DELETE FROM Player p WHERE p.id = :id";
+    private static final String VERSION = "SELECT p.version FROM Player p WHERE p.id = :id";
+
     private final PlayerRepository repository;
+    private final PlayerQueryTemplates queries;
+    private final PlayerCache cache;
+    private final PlayerQueryCache queryCache;
+    private final PlayerColumnIndex columnIndex;
+    private final List<PlayerWriteListener> writeListeners;
+    private final PlayerMetrics metrics;
+    private final ThreadLocal<WriteTiming> writeTiming = ThreadLocal.withInitial(WriteTiming::new);
+    private final WriteTimer writeTimer = new WriteTimer();
+    private final int exportFetchSize;
     @PersistenceContext
-    private final EntityManager entityManager;
+    private EntityManager entityManager;
 
-    public PlayersService(PlayerRepository repository, LocalContainerEntityManagerFactoryBean entityManager) {
+    public PlayersService(PlayerRepository repository, PlayerQueryTemplates queries, PlayerCache cache,
+                          PlayerQueryCache queryCache, PlayerColumnIndex columnIndex,
+                          List<PlayerWriteListener> writeListeners, PlayerMetrics metrics, Environment environment) {
         this.repository = repository;
-        this.entityManager = entityManager.getObject().createEntityManager();
+        this.queries = queries;
+        this.cache = cache;
+        this.queryCache = queryCache;
+        this.columnIndex = columnIndex;
+        this.writeListeners = writeListeners;
+        this.metrics = metrics;
+        // Connector/J streams a result row by row only for Integer.MIN_VALUE, which H2 rejects; useCursorFetch would
+        // stream positive sizes too, but it turns every statement with a fetch size into a server-side cursor
+        this.exportFetchSize = environment.getProperty("export.fetch-size", Integer.class,
+                environment.acceptsProfiles(Profiles.of("prod")) ? Integer.MIN_VALUE : 500);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Player> getPlayers(Map<String, String> params) {
-        CriteriaQuery<Player> playerCriteriaQuery = getPlayerCriteriaQuery(params);
+        long start = System.nanoTime();
+        try {
+            return findPlayers(params);
+        } finally {
+            metrics.recordOperation(Operation.GET_PLAYERS, start);
+        }
+    }
 
-        int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "3"));
-        int firstResult = pageSize * Integer.parseInt(params.getOrDefault("pageNumber", "0"));
+    private List<Player> findPlayers(Map<String, String> params) {
+        String key = queryCache.listKey(params);
+        List<Player> cached = queryCache.getList(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = queryCache.generation();
 
-        return entityManager.createQuery(playerCriteriaQuery).setFirstResult(firstResult).setMaxResults(pageSize).getResultList();
+        List<Player> players = Collections.emptyList();
+        PlayerOrder order = PlayerOrder.valueOf(params.getOrDefault("order", "ID"));
+        Map<String, Object> values = queries.getParameters(params, order);
+        if (values != null) {
+            metrics.recordFilters(Operation.GET_PLAYERS, values);
+            int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "3"));
+            int firstResult = params.containsKey("cursor") ? 0 : pageSize * Integer.parseInt(params.getOrDefault("pageNumber", "0"));
+            players = columnIndex.findPlayers(order, values, firstResult, pageSize);
+            if (players == null) {
+                TypedQuery<Player> query = createQuery(queries.listQuery(order, values.keySet()), Player.class, values);
+                query.setMaxResults(pageSize).setFirstResult(firstResult);
+                long start = System.nanoTime();
+                players = query.getResultList();
+                metrics.recordQuery(Operation.GET_PLAYERS, start);
+                metrics.recordRows(players.size());
+            }
+        }
+        players = Collections.unmodifiableList(players);
+        queryCache.put(key, generation, players);
+        return players;
     }
 
-    @Transactional
+    // changes with every committed write; read it before the query so that a racing write can only make the tag older
+    public String getListTag() {
+        return queryCache.etag();
+    }
+
+    public String getNextCursor(Map<String, String> params, List<Player> players) {
+        int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "3"));
+        if (players.isEmpty() || players.size() < pageSize) {
+            return null;
+        }
+        PlayerOrder order = PlayerOrder.valueOf(params.getOrDefault("order", "ID"));
+        return PlayerCursor.of(order, players.get(players.size() - 1)).encode();
+    }
+
+    @Transactional(readOnly = true)
     public int getCount(Map<String, String> params) {
-        CriteriaQuery<Player> playerCriteriaQuery = getPlayerCriteriaQuery(params);
-        return entityManager.createQuery(playerCriteriaQuery).getResultList().size();
+        long start = System.nanoTime();
+        try {
+            return findCount(params);
+        } finally {
+            metrics.recordOperation(Operation.GET_COUNT, start);
+        }
+    }
+
+    private int findCount(Map<String, String> params) {
+        String key = queryCache.countKey(params);
+        Integer cached = queryCache.getCount(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = queryCache.generation();
+
+        Map<String, Object> values = queries.getParameters(params, null);
+        int count = 0;
+        if (values != null) {
+            metrics.recordFilters(Operation.GET_COUNT, values);
+            Integer indexed = columnIndex.count(values);
+            if (indexed != null) {
+                count = indexed;
+            } else {
+                long start = System.nanoTime();
+                count = createQuery(queries.countQuery(values.keySet()), Long.class, values).getSingleResult().intValue();
+                metrics.recordQuery(Operation.GET_COUNT, start);
+            }
+        }
+        queryCache.put(key, generation, count);
+        return count;
+    }
+
+    // rows are read through a forward-only cursor into unmanaged players, so memory does not grow with the result
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public void forEachPlayer(Map<String, String> params, Consumer<Player> action) {
+        TypedQuery<Player> playerQuery = getPlayerQuery(params, Operation.EXPORT);
+        if (playerQuery == null) {
+            return;
+        }
+        Query<Player> query = playerQuery.unwrap(Query.class);
+        query.setFetchSize(exportFetchSize);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept((Player) results.get(0));
+            }
+        }
+    }
+
+    // one transaction for both queries; a short offset page already tells the total, so the count query is skipped
+    @Transactional(readOnly = true)
+    public PlayersPage getPage(Map<String, String> params) {
+        List<Player> players = getPlayers(params);
+        int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "3"));
+        int count;
+        if (params.containsKey("cursor")) {
+            count = getCount(params);
+            return new PlayersPage(players, count, getNextCursor(params, players));
+        }
+        int firstResult = pageSize * Integer.parseInt(params.getOrDefault("pageNumber", "0"));
+        if (players.size() < pageSize && (!players.isEmpty() || firstResult == 0)) {
+            count = firstResult + players.size();
+        } else {
+            count = getCount(params);
+        }
+        return new PlayersPage(players, count, null);
     }
 
     @Transactional
     public Player create(Player player) {
+        WriteTiming timing = startWrite(Operation.CREATE);
+        try {
+            return createPlayer(player, timing);
+        } finally {
+            writeReturned(timing);
+        }
+    }
+
+    private Player createPlayer(Player player, WriteTiming timing) {
         validatePlayer(player);
+        player.setVersion(null);
         player.calcLevel();
-        return repository.saveAndFlush(player);
+        long start = System.nanoTime();
+        Player saved = repository.saveAndFlush(player);
+        timing.query(start);
+        afterCommit(() -> writeListeners.forEach(listener -> listener.playerSaved(saved)));
+        return saved;
     }
 
     @Transactional(readOnly = true)
     public Player get(long id) {
-        validateId(id);
-        return repository.findById(id).get();
+        long start = System.nanoTime();
+        try {
+            return findPlayer(id);
+        } finally {
+            metrics.recordOperation(Operation.GET, start);
+        }
+    }
+
+    // revalidates a client's copy without loading the player: the cached version, else the version column alone;
+    // null when there is no such player, which the full lookup then reports
+    @Transactional(readOnly = true)
+    public Long getVersion(long id) {
+        long start = System.nanoTime();
+        try {
+            return findVersion(id);
+        } finally {
+            metrics.recordOperation(Operation.GET, start);
+        }
+    }
+
+    private Long findVersion(long id) {
+        if (id < 1) {
+            return null;
+        }
+        Player cached = cache.get(id);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        long start = System.nanoTime();
+        List<Long> versions = entityManager.createQuery(VERSION, Long.class).setParameter("id", id).getResultList();
+        metrics.recordQuery(Operation.GET, start);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private Player findPlayer(long id) {
+        if (id < 1) {
+            throw new IdNotValidException();
+        }
+        Player cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp(id);
+        long start = System.nanoTime();
+        Optional<Player> found = repository.findById(id);
+        metrics.recordQuery(Operation.GET, start);
+        Player player = found.orElseThrow(IdNotFoundException::new);
+        cache.putIfUnchanged(player, stamp);
+        return player;
     }
 
     @Transactional
     public Player update(Long id, Player player) {
-        validateId(id);
-        Player playerUp = get(id);
-        if (player.getName() != null) playerUp.setName(player.getName());
-        if (player.getTitle() != null) playerUp.setTitle(player.getTitle());
-        if (player.getRace() != null) playerUp.setRace(player.getRace());
-        if (player.getProfession() != null) playerUp.setProfession(player.getProfession());
-        if (player.getBirthday() != null) playerUp.setBirthday(player.getBirthday());
-        if (player.getBanned() != null) playerUp.setBanned(player.getBanned());
-        if (player.getExperience() != null) playerUp.setExperience(player.getExperience());
+        WriteTiming timing = startWrite(Operation.UPDATE);
+        try {
+            return updatePlayer(id, player, timing);
+        } finally {
+            writeReturned(timing);
+        }
+    }
+
+    // the stored row is read once, because the changes are merged into it and it is returned; the versioned UPDATE
+    // then fails instead of overwriting a write that came in between
+    private Player updatePlayer(Long id, Player player, WriteTiming timing) {
+        if (id < 1) {
+            throw new IdNotValidException();
+        }
+        long start = System.nanoTime();
+        Optional<Player> found = repository.findById(id);
+        timing.query(start);
+        Player playerUp = found.orElseThrow(IdNotFoundException::new);
+        checkVersion(playerUp, player);
+        applyChanges(playerUp, player);
         validatePlayer(playerUp);
         playerUp.calcLevel();
-        return repository.saveAndFlush(playerUp);
+        Player saved;
+        start = System.nanoTime();
+        try {
+            saved = repository.saveAndFlush(playerUp);
+        } catch (OptimisticLockingFailureException e) {
+            throw new VersionConflictException();
+        } finally {
+            timing.query(start);
+        }
+        afterCommit(() -> writeListeners.forEach(listener -> listener.playerSaved(saved)));
+        return saved;
     }
 
 
     @Transactional
     public void delete(Long id) {
-        validateId(id);
-        repository.deleteById(id);
-    }
-
-    private CriteriaQuery<Player> getPlayerCriteriaQuery(Map<String, String> params) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Player> playerCriteriaQuery = criteriaBuilder.createQuery(Player.class);
-        Root<Player> playerRoot = playerCriteriaQuery.from(Player.class);
-        playerCriteriaQuery.select(playerRoot);
-
-        List<Predicate> predicates = getPredicates(params, criteriaBuilder, playerRoot);
-
-        String order = PlayerOrder.valueOf(params.getOrDefault("order", "ID")).getFieldName();
-
-        playerCriteriaQuery.where(criteriaBuilder.and(predicates.toArray(new Predicate[0])))
-                .orderBy(criteriaBuilder.asc(playerRoot.get(order)));
-        return playerCriteriaQuery;
+        WriteTiming timing = startWrite(Operation.DELETE);
+        try {
+            deletePlayer(id, timing);
+        } finally {
+            writeReturned(timing);
+        }
     }
 
-    private List<Predicate> getPredicates(Map<String, String> params, CriteriaBuilder criteriaBuilder, Root<Player> playerRoot) {
-        List<Predicate> predicates = new ArrayList<>();
-        predicates.add(criteriaBuilder.and(criteriaBuilder.like(playerRoot.get("name"), "%" + params.getOrDefault("name", "") + "%"),
-                criteriaBuilder.like(playerRoot.get("title"), "%" + params.getOrDefault("title", "") + "%")));
-        if (params.get("race") != null) {
-            predicates.add(criteriaBuilder.equal(playerRoot.get("race"), Race.valueOf(params.get("race"))));
+    // one statement: a missing player is told by the row count instead of a SELECT before the DELETE
+    private void deletePlayer(Long id, WriteTiming timing) {
+        if (id < 1) {
+            throw new IdNotValidException();
         }
-        if (params.get("profession") != null) {
-            predicates.add(criteriaBuilder.equal(playerRoot.get("profession"), Profession.valueOf(params.get("profession"))));
+        long start = System.nanoTime();
+        int deleted = entityManager.createQuery(DELETE).setParameter("id", id).executeUpdate();
+        timing.query(start);
+        if (deleted == 0) {
+            throw new IdNotFoundException();
         }
-        if (params.get("after") != null) {
-            predicates.add(criteriaBuilder.greaterThanOrEqualTo(playerRoot.get("birthday"), new Date(Long.parseLong(params.get("after")))));
+        afterCommit(() -> writeListeners.forEach(listener -> listener.playerDeleted(id)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        if (params.get("before") != null) {
-            predicates.add(criteriaBuilder.lessThanOrEqualTo(playerRoot.get("birthday"), new Date(Long.parseLong(params.get("before")))));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Writes are timed until their transaction has completed: the flush and the commit run after the service method
+    // has returned, inside the transaction proxy, so they count towards both the operation and its database time.
+    // The timing state is per thread and reused, and one synchronization serves every write, so timing allocates
+    // nothing of its own.
+    private WriteTiming startWrite(Operation operation) {
+        WriteTiming timing = writeTiming.get();
+        timing.operation = operation;
+        timing.start = System.nanoTime();
+        timing.queryNanos = 0;
+        timing.commitStart = 0;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(writeTimer);
         }
-        if (params.get("banned") != null) {
-            predicates.add(criteriaBuilder.equal(playerRoot.get("banned"), Boolean.parseBoolean(params.get("banned"))));
+        return timing;
+    }
+
+    // without a transaction there is nothing left to wait for once the method has returned
+    private void writeReturned(WriteTiming timing) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordWrite(timing);
         }
-        if (params.get("minExperience") != null) {
-            predicates.add(criteriaBuilder.greaterThanOrEqualTo(playerRoot.get("experience"), Integer.parseInt(params.get("minExperience"))));
+    }
+
+    private void recordWrite(WriteTiming timing) {
+        if (timing.queryNanos > 0) {
+            metrics.recordQueryNanos(timing.operation, timing.queryNanos);
         }
-        if (params.get("maxExperience") != null) {
-            predicates.add(criteriaBuilder.lessThanOrEqualTo(playerRoot.get("experience"), Integer.parseInt(params.get("maxExperience"))));
+        metrics.recordOperation(timing.operation, timing.start);
+    }
+
+    // the callbacks run on the thread that ran the write, so they find its timing in the thread local
+    private class WriteTimer extends TransactionSynchronizationAdapter {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writeTiming.get().commitStart = System.nanoTime();
         }
-        if (params.get("minLevel") != null) {
-            predicates.add(criteriaBuilder.greaterThanOrEqualTo(playerRoot.get("level"), Integer.parseInt(params.get("minLevel"))));
+
+        @Override
+        public void afterCompletion(int status) {
+            WriteTiming timing = writeTiming.get();
+            if (timing.commitStart != 0) {
+                timing.queryNanos += System.nanoTime() - timing.commitStart;
+            }
+            recordWrite(timing);
         }
-        if (params.get("maxLevel") != null) {
-            predicates.add(criteriaBuilder.lessThanOrEqualTo(playerRoot.get("level"), Integer.parseInt(params.get("maxLevel"))));
+    }
+
+    private static class WriteTiming {
+        private Operation operation;
+        private long start;
+        private long queryNanos;
+        private long commitStart;
+
+        private void query(long queryStart) {
+            queryNanos += System.nanoTime() - queryStart;
         }
-        return predicates;
     }
 
-    private void validateId(Long id) {
-        if (id < 1) {
-            throw new IdNotValidException();
+    // null when the text index already proves that no player matches
+    TypedQuery<Player> getPlayerQuery(Map<String, String> params, Operation operation) {
+        PlayerOrder order = PlayerOrder.valueOf(params.getOrDefault("order", "ID"));
+        Map<String, Object> values = queries.getParameters(params, order);
+        if (values == null) {
+            return null;
         }
-        if (!repository.existsById(id)) {
-            throw new IdNotFoundException();
+        metrics.recordFilters(operation, values);
+        return createQuery(queries.listQuery(order, values.keySet()), Player.class, values);
+    }
+
+    private <T> TypedQuery<T> createQuery(String jpql, Class<T> resultClass, Map<String, Object> values) {
+        TypedQuery<T> query = entityManager.createQuery(jpql, resultClass);
+        values.forEach(query::setParameter);
+        return query;
+    }
+
+    // a client that sends the version it has read gets a conflict instead of overwriting a newer state;
+    // without one the update still cannot interleave with another, because the flush checks the loaded version
+    void checkVersion(Player playerUp, Player player) {
+        if (player.getVersion() != null && !player.getVersion().equals(playerUp.getVersion())) {
+            throw new VersionConflictException();
         }
     }
 
+    void applyChanges(Player playerUp, Player player) {
+        if (player.getName() != null) playerUp.setName(player.getName());
+        if (player.getTitle() != null) playerUp.setTitle(player.getTitle());
+        if (player.getRace() != null) playerUp.setRace(player.getRace());
+        if (player.getProfession() != null) playerUp.setProfession(player.getProfession());
+        if (player.getBirthday() != null) playerUp.setBirthday(player.getBirthday());
+        if (player.getBanned() != null) playerUp.setBanned(player.getBanned());
+        if (player.getExperience() != null) playerUp.setExperience(player.getExperience());
+    }
 
-    private void validatePlayer(Player player) {
+    void validatePlayer(Player player) {
         if (player.getName() == null || player.getTitle() == null || player.getRace() == null
                 || player.getProfession() == null || player.getBirthday() == null || player.getExperience() == null) {
             throw new ParametersNotValidException();
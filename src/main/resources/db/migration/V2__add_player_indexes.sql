@@ -0,0 +1,10 @@
+-- keyset pagination and ORDER BY for every PlayerOrder
+CREATE INDEX player_name_id_idx ON player (name, id);
+CREATE INDEX player_experience_id_idx ON player (experience, id);
+CREATE INDEX player_birthday_id_idx ON player (birthday, id);
+CREATE INDEX player_level_id_idx ON player (level, id);
+
+-- equality filters followed by a range filter
+CREATE INDEX player_race_profession_level_idx ON player (race, profession, level);
+CREATE INDEX player_profession_level_idx ON player (profession, level);
+CREATE INDEX player_banned_experience_idx ON player (banned, experience);
@@ -0,0 +1,2 @@
+-- optimistic lock and ETag source for single players
+ALTER TABLE player ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -1,13 +1,17 @@
 package com.game.controller;
 
 import com.game.config.AppConfig;
+import com.game.config.CompressionFilter;
 import com.game.config.MyWebAppInit;
+import com.game.config.QueryTraceFilter;
 import com.game.config.WebConfig;
+import com.game.service.PlayerWriteListener;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -21,6 +25,7 @@ import org.springframework.web.context.WebApplicationContext;
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
 @WebAppConfiguration
 @Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+@TestPropertySource(properties = "async.enabled=false")
 public abstract class AbstractTest {
 
     WebApplicationContext context;
@@ -33,12 +38,15 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        context.getBeansOfType(PlayerWriteListener.class).values().forEach(PlayerWriteListener::reload);
         mockMvc = MockMvcBuilders
                 .webAppContextSetup(context)
                 .addFilter(((request, response, chain) -> {
                     response.setCharacterEncoding("UTF-8");
                     chain.doFilter(request, response);
                 }))
+                .addFilter(context.getBean(QueryTraceFilter.class))
+                .addFilter(context.getBean(CompressionFilter.class))
                 .build();
     }
 }
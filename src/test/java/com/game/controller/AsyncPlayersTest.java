@@ -0,0 +1,136 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.PlayersExecutor;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"async.enabled=true", "async.threads=1", "async.queue-capacity=1"})
+public class AsyncPlayersTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayerAsyncTest() throws Exception {
+        String contentAsString = performAsync(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getContentAsString();
+
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Асинхронный GET /rest/players/{id} вернул не тот объект.", new TestsHelper().getPlayerInfosById(14), actual);
+
+        performAsync(get("/rest/players/410"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void updatePlayerAsyncTest() throws Exception {
+        String contentAsString = performAsync(post("/rest/players/14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Асинхронное обновление игрока не применилось.", 804, mapper.readValue(contentAsString, PlayerInfoTest.class).experience);
+    }
+
+    //test3
+    @Test
+    public void getAllNotModifiedWithoutAsyncTest() throws Exception {
+        String etag = performAsync(get("/rest/players"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/rest/players").header("If-None-Match", etag))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void getAllAsyncGzipTest() throws Exception {
+        byte[] compressed = performAsync(get("/rest/players?pageSize=40").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals("Асинхронный сжатый ответ GET /rest/players содержит не всех игроков.", 40,
+                    mapper.readTree(StreamUtils.copyToString(in, StandardCharsets.UTF_8)).size());
+        }
+    }
+
+    //test5
+    @Test
+    public void fullQueueAnswersServiceUnavailableTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = occupyWorker(release);
+        CompletableFuture<Object> queued = context.getBean(PlayersExecutor.class).submit("test", () -> null);
+        try {
+            mockMvc.perform(get("/rest/players/1"))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            release.countDown();
+        }
+        running.get();
+        queued.get();
+    }
+
+    // the only worker is held until the request has been queued, so the request always goes through a dispatch
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = occupyWorker(release);
+        MvcResult result;
+        try {
+            result = mockMvc.perform(requestBuilder)
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+        } finally {
+            release.countDown();
+        }
+        running.get();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private CompletableFuture<Object> occupyWorker(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Object> running = context.getBean(PlayersExecutor.class).submit("test", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        started.await();
+        return running;
+    }
+}
@@ -0,0 +1,114 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BatchPlayersTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createPlayersBatchTest() throws Exception {
+        JsonNode results = postBatch("/rest/players/batch",
+                "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.TOO_BIG_EXPERIENCE_JSON + "," + TestsHelper.NORMAL_JSON + "]");
+
+        assertEquals("POST /rest/players/batch возвращает не тот статус для корректного игрока.", 200, results.get(0).get("status").asInt());
+        assertEquals("POST /rest/players/batch возвращает не тот статус для некорректного игрока.", 400, results.get(1).get("status").asInt());
+        assertEquals("POST /rest/players/batch возвращает не тот статус для корректного игрока.", 200, results.get(2).get("status").asInt());
+        assertEquals("POST /rest/players/batch возвращает не тот id.", 41, results.get(0).get("id").asLong());
+        assertEquals("POST /rest/players/batch возвращает не тот id.", 42, results.get(2).get("id").asLong());
+
+        JsonNode player = mapper.readTree(getContent("/rest/players/42"));
+        assertEquals("Игрок, созданный через POST /rest/players/batch, сохранён неправильно.", "Амарылис", player.get("name").asText());
+        assertEquals("Игроку, созданному через POST /rest/players/batch, не рассчитан уровень.", 35, player.get("level").asInt());
+        assertEquals("Игрок, созданный через POST /rest/players/batch, не находится поиском.", 2,
+                Integer.parseInt(getContent("/rest/players/count?name=Амары")));
+    }
+
+    //test2
+    @Test
+    public void createManyPlayersBatchTest() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1200; i++) {
+            body.append(i == 0 ? "" : ",").append(TestsHelper.NORMAL_JSON);
+        }
+        JsonNode results = postBatch("/rest/players/batch", body.append(']').toString());
+
+        for (int i = 0; i < 1200; i++) {
+            assertEquals("POST /rest/players/batch возвращает не тот id для элемента " + i + ".", 41 + i, results.get(i).get("id").asLong());
+        }
+        assertEquals("POST /rest/players/batch сохраняет не всех игроков.", 1240, Integer.parseInt(getContent("/rest/players/count")));
+    }
+
+    //test3
+    @Test
+    public void updatePlayersBatchTest() throws Exception {
+        JsonNode results = postBatch("/rest/players/batch/update",
+                "[{\"id\": 1, \"experience\": 1000}, {\"id\": 999, \"name\": \"Нет\"}, {\"id\": 2, \"name\": \"\"}, {\"name\": \"Без id\"}]");
+
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для существующего игрока.", 200, results.get(0).get("status").asInt());
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для несуществующего игрока.", 404, results.get(1).get("status").asInt());
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для некорректных данных.", 400, results.get(2).get("status").asInt());
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для игрока без id.", 400, results.get(3).get("status").asInt());
+
+        JsonNode updated = mapper.readTree(getContent("/rest/players/1"));
+        assertEquals("POST /rest/players/batch/update не сохраняет опыт.", 1000, updated.get("experience").asInt());
+        assertEquals("POST /rest/players/batch/update не пересчитывает уровень.", 4, updated.get("level").asInt());
+        JsonNode untouched = mapper.readTree(getContent("/rest/players/2"));
+        assertEquals("POST /rest/players/batch/update сохраняет некорректные данные.", "Никрашш", untouched.get("name").asText());
+    }
+
+    //test4
+    @Test
+    public void deletePlayersBatchTest() throws Exception {
+        JsonNode results = postBatch("/rest/players/batch/delete", "[1, 1, 999, 0]");
+
+        assertEquals("POST /rest/players/batch/delete возвращает не тот статус для существующего игрока.", 200, results.get(0).get("status").asInt());
+        assertEquals("POST /rest/players/batch/delete возвращает не тот статус для уже удалённого игрока.", 404, results.get(1).get("status").asInt());
+        assertEquals("POST /rest/players/batch/delete возвращает не тот статус для несуществующего игрока.", 404, results.get(2).get("status").asInt());
+        assertEquals("POST /rest/players/batch/delete возвращает не тот статус для некорректного id.", 400, results.get(3).get("status").asInt());
+
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isNotFound());
+        assertEquals("POST /rest/players/batch/delete не удаляет игрока.", 39, Integer.parseInt(getContent("/rest/players/count")));
+    }
+
+    //test5
+    @Test
+    public void updatePlayersBatchStaleVersionTest() throws Exception {
+        long version = mapper.readTree(getContent("/rest/players/3")).get("version").asLong();
+
+        JsonNode results = postBatch("/rest/players/batch/update",
+                "[{\"id\": 3, \"experience\": 1000, \"version\": " + (version + 1) + "},"
+                        + "{\"id\": 4, \"experience\": 1000}]");
+
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для устаревшей версии.", 409, results.get(0).get("status").asInt());
+        assertEquals("POST /rest/players/batch/update возвращает не тот статус для игрока без версии.", 200, results.get(1).get("status").asInt());
+        assertEquals("POST /rest/players/batch/update обновляет игрока с устаревшей версией.", version,
+                mapper.readTree(getContent("/rest/players/3")).get("version").asLong());
+    }
+
+    private JsonNode postBatch(String url, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private String getContent(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
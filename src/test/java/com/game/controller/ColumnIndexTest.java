@@ -0,0 +1,171 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryCount;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "search.column-index.enabled=true")
+public class ColumnIndexTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPlayersFromIndexTest() throws Exception {
+        List<PlayerInfoTest> all = testsHelper.getAllPlayers();
+        List<List<PlayerInfoTest>> expectations = new ArrayList<>();
+        String[] filters = {"", "&race=ELF", "&profession=WARRIOR&banned=false", "&banned=true",
+                "&after=1104541200000&before=1230771600000", "&minExperience=30000&maxExperience=150000",
+                "&minLevel=20&maxLevel=50&race=HUMAN", "&minExperience=30000&maxLevel=60&before=1230771600000&banned=false"};
+        expectations.add(all);
+        expectations.add(testsHelper.getPlayerInfosByRace(Race.ELF, all));
+        expectations.add(testsHelper.getPlayerInfosByBaned(false, testsHelper.getPlayerInfosByProfession(Profession.WARRIOR, all)));
+        expectations.add(testsHelper.getPlayerInfosByBaned(true, all));
+        expectations.add(testsHelper.getPlayerInfosByBefore(1230771600000L, testsHelper.getPlayerInfosByAfter(1104541200000L, all)));
+        expectations.add(testsHelper.getPlayerInfosByMaxExperience(150000, testsHelper.getPlayerInfosByMinExperience(30000, all)));
+        expectations.add(testsHelper.getPlayerInfosByRace(Race.HUMAN,
+                testsHelper.getPlayerInfosByMaxLevel(50, testsHelper.getPlayerInfosByMinLevel(20, all))));
+        expectations.add(testsHelper.getPlayerInfosByBaned(false, testsHelper.getPlayerInfosByBefore(1230771600000L,
+                testsHelper.getPlayerInfosByMaxLevel(60, testsHelper.getPlayerInfosByMinExperience(30000, all)))));
+
+        for (PlayerOrder order : PlayerOrder.values()) {
+            ResultMatcher queries = order == PlayerOrder.NAME ? QueryCount.atMost(1) : QueryCount.none();
+            for (int i = 0; i < filters.length; i++) {
+                List<PlayerInfoTest> expected = new ArrayList<>(expectations.get(i));
+                expected.sort(comparator(order));
+
+                assertEquals("Индекс вернул не тех игроков для фильтров " + filters[i] + " и order=" + order + ".",
+                        testsHelper.getPlayerInfosByPage(1, 3, expected),
+                        getPlayers("/rest/players?pageNumber=1&order=" + order + filters[i], queries));
+                assertEquals("Индекс вернул не то количество для фильтров " + filters[i] + ".", expected.size(),
+                        getCount("/rest/players/count?order=" + order + filters[i], QueryCount.none()));
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void getPlayersByCursorFromIndexTest() throws Exception {
+        for (PlayerOrder order : PlayerOrder.values()) {
+            List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()));
+            expected.sort(comparator(order));
+            ResultMatcher queries = order == PlayerOrder.NAME ? QueryCount.atMost(1) : QueryCount.none();
+
+            List<PlayerInfoTest> actual = new ArrayList<>();
+            String cursor = "";
+            while (cursor != null) {
+                String nextCursor = mockMvc.perform(get("/rest/players?pageSize=4&banned=false&order=" + order + "&cursor=" + cursor))
+                        .andExpect(status().isOk())
+                        .andExpect(queries)
+                        .andDo(result -> actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference)))
+                        .andReturn().getResponse().getHeader("X-Next-Cursor");
+                cursor = nextCursor;
+            }
+            assertEquals("Постраничный обход по индексу с order=" + order + " вернул не тех игроков.", expected, actual);
+        }
+    }
+
+    //test3
+    @Test
+    public void nameFilterFallsBackToSqlTest() throws Exception {
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.HUMAN,
+                testsHelper.getPlayerInfosByName("ра", testsHelper.getAllPlayers()));
+
+        assertEquals("Количество с фильтром name посчитано неверно.", expected.size(),
+                getCount("/rest/players/count?name=ра&race=HUMAN", QueryCount.atMost(1)));
+        assertEquals("Список с фильтром name получен неверно.", testsHelper.getPlayerInfosByPage(0, 3, expected),
+                getPlayers("/rest/players?name=ра&race=HUMAN", QueryCount.atMost(1)));
+    }
+
+    //test4
+    @Test
+    public void writesKeepIndexCurrentTest() throws Exception {
+        int elves = getCount("/rest/players/count?race=ELF", QueryCount.none());
+        int hobbits = getCount("/rest/players/count?race=HOBBIT", QueryCount.none());
+
+        PlayerInfoTest created = mapper.readValue(mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Эльф\",\"title\":\"Новый\",\"race\":\"ELF\",\"profession\":\"DRUID\","
+                        + "\"birthday\":988059600000,\"banned\":false,\"experience\":10}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+        assertEquals("Созданный игрок не попал в индекс.", elves + 1,
+                getCount("/rest/players/count?race=ELF", QueryCount.none()));
+
+        mockMvc.perform(post("/rest/players/" + created.id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"race\":\"HOBBIT\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновление игрока не попало в индекс.", elves,
+                getCount("/rest/players/count?race=ELF", QueryCount.none()));
+        assertEquals("Обновление игрока не попало в индекс.", hobbits + 1,
+                getCount("/rest/players/count?race=HOBBIT", QueryCount.none()));
+
+        mockMvc.perform(post("/rest/players/" + created.id + "/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":9999990}"))
+                .andExpect(status().isOk());
+        List<PlayerInfoTest> top = getPlayers("/rest/players?order=EXPERIENCE&minExperience=10000000&race=HOBBIT", QueryCount.atMost(1));
+        assertEquals("Начисление опыта не попало в индекс.", 1, top.size());
+        assertEquals("Начисление опыта не попало в индекс.", created.id, top.get(0).id);
+
+        mockMvc.perform(delete("/rest/players/" + created.id))
+                .andExpect(status().isOk());
+        assertEquals("Удалённый игрок остался в индексе.", hobbits,
+                getCount("/rest/players/count?race=HOBBIT", QueryCount.none()));
+        assertEquals("Удалённый игрок остался в индексе.", 0,
+                getPlayers("/rest/players?minExperience=10000000", QueryCount.none()).size());
+    }
+
+    private List<PlayerInfoTest> getPlayers(String url, ResultMatcher queries) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(queries)
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, typeReference);
+    }
+
+    private int getCount(String url, ResultMatcher queries) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(queries)
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static Comparator<PlayerInfoTest> comparator(PlayerOrder order) {
+        Comparator<PlayerInfoTest> byId = Comparator.comparing(player -> player.id);
+        switch (order) {
+            case NAME:
+                return Comparator.<PlayerInfoTest, String>comparing(player -> player.name).thenComparing(byId);
+            case EXPERIENCE:
+                return Comparator.<PlayerInfoTest, Integer>comparing(player -> player.experience).thenComparing(byId);
+            case BIRTHDAY:
+                return Comparator.<PlayerInfoTest, Long>comparing(player -> player.birthday).thenComparing(byId);
+            case LEVEL:
+                return Comparator.<PlayerInfoTest, Integer>comparing(player -> player.level).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+}
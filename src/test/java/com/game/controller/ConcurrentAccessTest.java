@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import com.game.service.PlayersService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentAccessTest extends AbstractTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 25;
+
+    //test1
+    @Test
+    public void concurrentGetPlayersAndUpdateTest() throws Exception {
+        PlayersService service = context.getBean(PlayersService.class);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            runRound(service, executor);
+            long heapBefore = usedHeap();
+
+            for (int round = 0; round < 3; round++) {
+                runRound(service, executor);
+            }
+            long heapAfter = usedHeap();
+
+            assertTrue("Память растет при конкурентных запросах: " + heapBefore + " -> " + heapAfter + " байт.",
+                    heapAfter - heapBefore < 32 * 1024 * 1024);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runRound(PlayersService service, ExecutorService executor) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long id = thread + 1;
+            futures.add(executor.submit(updateAndRead(service, id)));
+            futures.add(executor.submit(listAll(service)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Callable<Void> updateAndRead(PlayersService service, long id) {
+        return () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                Player patch = new Player();
+                patch.setExperience((int) (id * 10_000 + i));
+                service.update(id, patch);
+
+                Player actual = service.get(id);
+                assertEquals("Чтение после обновления вернуло устаревшие данные игрока " + id + ".",
+                        patch.getExperience(), actual.getExperience());
+
+                Map<String, String> params = new HashMap<>();
+                params.put("minExperience", patch.getExperience().toString());
+                params.put("maxExperience", patch.getExperience().toString());
+                List<Player> found = service.getPlayers(params);
+                assertEquals("Поиск после обновления не нашел игрока " + id + ".", 1, found.size());
+                assertEquals("Поиск после обновления вернул устаревшие данные игрока " + id + ".",
+                        patch.getExperience(), found.get(0).getExperience());
+            }
+            return null;
+        };
+    }
+
+    private Callable<Void> listAll(PlayersService service) {
+        return () -> {
+            Map<String, String> params = new HashMap<>();
+            params.put("pageSize", "40");
+            for (int i = 0; i < ITERATIONS; i++) {
+                List<Player> players = service.getPlayers(params);
+                Set<Long> ids = new HashSet<>();
+                for (Player player : players) {
+                    ids.add(player.getId());
+                }
+                assertEquals("Список игроков поврежден при конкурентных запросах.", 40, players.size());
+                assertEquals("Список игроков содержит дубликаты при конкурентных запросах.", 40, ids.size());
+            }
+            return null;
+        };
+    }
+
+    private long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,6 +1,7 @@
 package com.game.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.controller.utils.PlayerInfoTest;
@@ -11,10 +12,13 @@ import org.springframework.test.web.servlet.ResultActions;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class CreatePlayerTest extends AbstractTest {
 
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     //test1
     @Test
     public void createPlayerEmptyBodyTest() throws Exception {
@@ -73,4 +77,22 @@ public class CreatePlayerTest extends AbstractTest {
         PlayerInfoTest actual = new ObjectMapper().readValue(contentAsString, PlayerInfoTest.class);
         assertEquals("Возвращается не правильный результат при запросе создания игрока.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test7
+    @Test
+    public void createPlayerSmileTest() throws Exception {
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        byte[] body = smile.writeValueAsBytes(new ObjectMapper().readTree(TestsHelper.BANNED_TRUE_JSON));
+
+        ResultActions resultActions = mockMvc.perform(post("/rest/players/")
+                .contentType(SMILE)
+                .accept(SMILE)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE));
+
+        PlayerInfoTest expected = new PlayerInfoTest(41L, "Амарылис", "Прозелит", Race.DWARF, Profession.CLERIC, 988059600000L, true, 63986, 35, 2614);
+        PlayerInfoTest actual = smile.readValue(resultActions.andReturn().getResponse().getContentAsByteArray(), PlayerInfoTest.class);
+        assertEquals("Возвращается не правильный результат при создании игрока в формате Smile.", expected, actual);
+    }
+}
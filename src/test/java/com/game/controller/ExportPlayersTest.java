@@ -0,0 +1,62 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportPlayersTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void exportNdjsonWithFiltersTest() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/export?race=HUMAN&order=NAME"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> actual = new ArrayList<>();
+        for (String line : contentAsString.split("\n")) {
+            actual.add(mapper.readValue(line, PlayerInfoTest.class));
+        }
+        List<PlayerInfoTest> expected = mapper.readValue(mockMvc.perform(get("/rest/players?race=HUMAN&order=NAME&pageSize=100"))
+                .andReturn().getResponse().getContentAsString(), typeReference);
+
+        assertEquals("GET /rest/players/export возвращает не тех игроков.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvTest() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/export?format=csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = contentAsString.split("\n");
+
+        assertEquals("GET /rest/players/export?format=csv возвращает не тот заголовок.",
+                "id,name,title,race,profession,experience,level,untilNextLevel,birthday,banned", lines[0]);
+        assertEquals("GET /rest/players/export?format=csv возвращает не всех игроков.", 41, lines.length);
+        assertEquals("GET /rest/players/export?format=csv возвращает неправильную строку.",
+                "1,Ниус,Приходящий Без Шума,HOBBIT,ROGUE,58347,33,1153", lines[1].substring(0, lines[1].lastIndexOf(',', lines[1].lastIndexOf(',') - 1)));
+    }
+
+    //test3
+    @Test
+    public void exportUnknownFormatTest() throws Exception {
+        mockMvc.perform(get("/rest/players/export?format=xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
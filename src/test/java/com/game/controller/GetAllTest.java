@@ -6,15 +6,37 @@ import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.controller.utils.PlayerInfoTest;
 import com.game.controller.utils.TestsHelper;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.service.PlayerQueryTemplates;
+import com.game.service.PlayersService;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetAllTest extends AbstractTest {
@@ -172,4 +194,186 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами after, before, minExperience и maxExperience.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getAllWithCursorWalksEveryOrder() throws Exception {
+        for (PlayerOrder order : PlayerOrder.values()) {
+            String suffix = "?pageSize=100&banned=false&order=" + order.name();
+            List<PlayerInfoTest> expected = mapper.readValue(mockMvc.perform(get("/rest/players" + suffix))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), typeReference);
+
+            List<PlayerInfoTest> actual = new ArrayList<>();
+            String cursor = "";
+            while (cursor != null) {
+                MvcResult result = mockMvc.perform(get("/rest/players?pageSize=4&banned=false&order=" + order.name() + "&cursor=" + cursor))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                actual.addAll(mapper.readValue(result.getResponse().getContentAsString(), typeReference));
+                cursor = result.getResponse().getHeader("X-Next-Cursor");
+            }
+
+            assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players с параметром cursor и order=" + order + ".", expected, actual);
+        }
+    }
+
+    //test10
+    @Test
+    public void getAllWithCursorOfAnotherOrder() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/players?cursor=&order=NAME"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String cursor = result.getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/rest/players?order=LEVEL&cursor=" + cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players?cursor=test"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test11
+    @Test
+    public void getAllWithFiltersNameTitleAfterWrites() throws Exception {
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON_2, "Странник", "HOBBIT", "ROGUE", 1286830800000L)))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/2"))
+                .andExpect(status().isOk());
+
+        List<PlayerInfoTest> byTitle = mapper.readValue(mockMvc.perform(get("/rest/players?title=транн"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        List<PlayerInfoTest> byName = mapper.readValue(mockMvc.perform(get("/rest/players?name=марыл&title=озел"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        List<PlayerInfoTest> deleted = mapper.readValue(mockMvc.perform(get("/rest/players?name=Никрашш"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+        List<PlayerInfoTest> oldTitle = mapper.readValue(mockMvc.perform(get("/rest/players?title=Приходящий"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), typeReference);
+
+        assertEquals("Поиск по title не находит обновленного игрока.", 1, byTitle.size());
+        assertEquals("Поиск по title не находит обновленного игрока.", 1L, (long) byTitle.get(0).id);
+        assertEquals("Поиск по name и title не находит созданного игрока.", 1, byName.size());
+        assertEquals("Поиск по name и title не находит созданного игрока.", 41L, (long) byName.get(0).id);
+        assertEquals("Поиск по name находит удаленного игрока.", 0, deleted.size());
+        assertEquals("Поиск по title находит игрока по старому значению.", 0, oldTitle.size());
+    }
+
+    //test12
+    @Test
+    public void getAllDoesNotManageListedPlayers() {
+        PlayersService service = context.getBean(PlayersService.class);
+        EntityManagerFactory entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        Map<String, String> params = new HashMap<>();
+        params.put("pageSize", "20");
+        params.put("order", "LEVEL");
+
+        long managed = transactionTemplate.execute(status -> {
+            List<Player> players = service.getPlayers(params);
+            assertEquals("GET /rest/players возвращает не то количество игроков.", 20, players.size());
+            return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory)
+                    .unwrap(Session.class).getStatistics().getEntityCount();
+        });
+
+        assertEquals("Список игроков попадает в контекст персистентности.", 0L, managed);
+    }
+
+    //test13
+    @Test
+    public void getAllReusesQueryTextPerShape() {
+        PlayerQueryTemplates queries = context.getBean(PlayerQueryTemplates.class);
+        Map<String, String> elves = new HashMap<>();
+        elves.put("race", "ELF");
+        elves.put("minLevel", "10");
+        Map<String, String> orcs = new HashMap<>();
+        orcs.put("minLevel", "30");
+        orcs.put("race", "ORC");
+
+        String first = queries.listQuery(PlayerOrder.ID, queries.getParameters(elves, PlayerOrder.ID).keySet());
+        String second = queries.listQuery(PlayerOrder.ID, queries.getParameters(orcs, PlayerOrder.ID).keySet());
+        String other = queries.listQuery(PlayerOrder.NAME, queries.getParameters(orcs, PlayerOrder.NAME).keySet());
+
+        assertEquals("Поиски одной формы строят разные запросы.", true, first == second);
+        assertEquals("Поиски разной формы используют один запрос.", false, first.equals(other));
+    }
+
+    //test14
+    @Test
+    public void getAllWritesSameJsonAsFieldReflection() throws Exception {
+        String actual = mockMvc.perform(get("/rest/players?pageSize=40&order=BIRTHDAY"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Player> players = new ArrayList<>(context.getBean(PlayersService.class).getPlayers(createParams("pageSize", "40", "order", "BIRTHDAY")));
+        players.add(new Player());
+
+        ObjectMapper reflection = WebConfig.createObjectMapper(false);
+        ObjectMapper serializer = WebConfig.createObjectMapper(true);
+
+        assertEquals("GET /rest/players возвращает JSON, отличный от сериализации полей.",
+                reflection.writeValueAsString(players.subList(0, 40)), actual);
+        assertEquals("PlayerSerializer пишет пустого игрока не так, как сериализация полей.",
+                reflection.writeValueAsString(players), serializer.writeValueAsString(players));
+    }
+
+    //test15
+    @Test
+    public void getAllNotModifiedTest() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players?pageNumber=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String content = mockMvc.perform(get("/rest/players?pageNumber=1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Ответ 304 на GET /rest/players содержит тело.", "", content);
+
+        mockMvc.perform(post("/rest/players/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players?pageNumber=1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    //test16
+    @Test
+    public void getAllGzipTest() throws Exception {
+        String plain = mockMvc.perform(get("/rest/players?pageSize=40"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] compressed = mockMvc.perform(get("/rest/players?pageSize=40").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals("Сжатый ответ GET /rest/players отличается от несжатого.",
+                    plain, StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(get("/rest/players").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    private Map<String, String> createParams(String... pairs) {
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put(pairs[i], pairs[i + 1]);
+        }
+        return params;
+    }
+}
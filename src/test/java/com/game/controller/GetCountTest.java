@@ -1,5 +1,8 @@
 package com.game.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.controller.utils.TestsHelper;
@@ -8,6 +11,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -15,6 +21,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class GetCountTest extends AbstractTest {
 
     private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
 
     //test1
     @Test
@@ -151,4 +160,46 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/players/count с параметром banned.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getCountMatchesListForEveryFilterCombination() throws Exception {
+        String[] filters = {"name=а", "title=е", "race=ELF", "profession=SORCERER", "after=1104530400000",
+                "before=1230760800000", "banned=false", "minExperience=30000", "maxExperience=150000",
+                "minLevel=20", "maxLevel=50"};
+
+        for (int mask = 0; mask < 1 << filters.length; mask++) {
+            StringBuilder suffix = new StringBuilder("?pageSize=100");
+            for (int i = 0; i < filters.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    suffix.append('&').append(filters[i]);
+                }
+            }
+
+            String listContent = this.mockMvc.perform(get("/rest/players" + suffix))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String countContent = this.mockMvc.perform(get("/rest/players/count" + suffix))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            List<PlayerInfoTest> players = mapper.readValue(listContent, typeReference);
+            int actual = Integer.parseInt(countContent);
+
+            assertEquals("Результат GET /rest/players/count не совпадает с GET /rest/players для параметров " + suffix + ".",
+                    players.size(), actual);
+        }
+    }
+
+    //test10
+    @Test
+    public void getCountWithLikeWildcardInName() throws Exception {
+        String contentAsString = this.mockMvc.perform(get("/rest/players/count?name=_а"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int actual = Integer.parseInt(contentAsString);
+        long expected = testsHelper.getAllPlayers().stream().filter(player -> player.name.indexOf('а', 1) >= 0).count();
+
+        assertEquals("Подчёркивание в параметре name должно работать как шаблон LIKE.", expected, actual);
+    }
+}
@@ -0,0 +1,82 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPageMatchesListAndCountTest() throws Exception {
+        String[] filters = {"", "&name=а", "&race=ELF", "&banned=true&order=LEVEL", "&minLevel=20&maxLevel=30&order=NAME",
+                "&name=zzz"};
+        int[] pageSizes = {1, 3, 4, 5, 40};
+
+        for (String filter : filters) {
+            for (int pageSize : pageSizes) {
+                for (int pageNumber = 0; pageNumber <= 40 / pageSize + 1; pageNumber++) {
+                    String suffix = "?pageSize=" + pageSize + "&pageNumber=" + pageNumber + filter;
+                    JsonNode page = mapper.readTree(getContent("/rest/players/page" + suffix));
+                    List<PlayerInfoTest> expectedPlayers = mapper.readValue(getContent("/rest/players" + suffix), typeReference);
+                    int expectedCount = Integer.parseInt(getContent("/rest/players/count" + suffix));
+
+                    assertEquals("GET /rest/players/page возвращает не тех игроков для параметров " + suffix + ".",
+                            expectedPlayers, mapper.convertValue(page.get("players"), typeReference));
+                    assertEquals("GET /rest/players/page возвращает не то количество игроков для параметров " + suffix + ".",
+                            expectedCount, page.get("count").asInt());
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void getPageWithCursorReturnsNextCursorTest() throws Exception {
+        JsonNode page = mapper.readTree(getContent("/rest/players/page?order=NAME&pageSize=5&cursor="));
+
+        assertEquals("GET /rest/players/page с курсором возвращает не то количество игроков.", 40, page.get("count").asInt());
+        assertNotNull("GET /rest/players/page с курсором не возвращает следующий курсор.", page.get("nextCursor").textValue());
+
+        JsonNode next = mapper.readTree(getContent("/rest/players/page?order=NAME&pageSize=5&cursor=" + page.get("nextCursor").textValue()));
+        List<PlayerInfoTest> expected = mapper.readValue(getContent("/rest/players?order=NAME&pageSize=5&pageNumber=1"), typeReference);
+        assertEquals("GET /rest/players/page по курсору возвращает не следующую страницу.",
+                expected, mapper.convertValue(next.get("players"), typeReference));
+    }
+
+    //test3
+    @Test
+    public void getPageBorrowsOneConnectionTest() throws Exception {
+        Map<String, Object> before = getMetrics();
+        getContent("/rest/players/page?race=HUMAN&profession=WARRIOR&pageSize=2");
+        Map<String, Object> after = getMetrics();
+
+        assertEquals("GET /rest/players/page берёт из пула больше одного соединения.", 1,
+                ((Number) after.get("acquireCount")).longValue() - ((Number) before.get("acquireCount")).longValue());
+    }
+
+    private String getContent(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Map<String, Object> getMetrics() throws Exception {
+        return mapper.readValue(getContent("/rest/metrics/pool"), new TypeReference<Map<String, Object>>() {
+        });
+    }
+}
@@ -1,14 +1,23 @@
 package com.game.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.game.controller.utils.PlayerInfoTest;
 import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerCache;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class GetPlayerTest extends AbstractTest {
@@ -47,4 +56,98 @@ public class GetPlayerTest extends AbstractTest {
         PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
         assertEquals("Вернулся неправильный объект при запросе GET /rest/players/{id}", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test5
+    @Test
+    public void getPlayerByIdAfterWritesTest() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Запрос GET /rest/players/{id} после обновления вернул устаревший объект", 804, actual.experience);
+
+        mockMvc.perform(delete("/rest/players/14"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test6
+    @Test
+    public void getPlayerByIdSmileTest() throws Exception {
+        PlayerInfoTest expected = new TestsHelper().getPlayerInfosById(14);
+
+        byte[] content = mockMvc.perform(get("/rest/players/14").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PlayerInfoTest actual = new ObjectMapper(new SmileFactory()).readValue(content, PlayerInfoTest.class);
+        assertEquals("Вернулся неправильный объект при запросе GET /rest/players/{id} в формате Smile", expected, actual);
+    }
+
+    //test7
+    @Test
+    public void getPlayerByIdNotModifiedTest() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/rest/players/14").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/players/14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/players/14").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = new ObjectMapper().readValue(content, PlayerInfoTest.class);
+        assertEquals("Запрос GET /rest/players/{id} с устаревшим ETag вернул старый объект", 804, actual.experience);
+    }
+
+    //test8
+    @Test
+    public void getPlayerDoesNotCacheRowReadBeforeWriteTest() throws Exception {
+        PlayerCache cache = context.getBean(PlayerCache.class);
+        PlayerRepository repository = context.getBean(PlayerRepository.class);
+
+        // a GET that read player 14 before a grant committed and reaches the cache only after it
+        long stamp = cache.stamp(14L);
+        Player stale = repository.findById(14L).orElseThrow(IllegalStateException::new);
+        mockMvc.perform(post("/rest/players/14/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":1000}"))
+                .andExpect(status().isOk());
+        cache.putIfUnchanged(stale, stamp);
+
+        String content = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = new ObjectMapper().readValue(content, PlayerInfoTest.class);
+        assertEquals("GET /rest/players/{id} вернул состояние игрока до начисления опыта", stale.getExperience() + 1000,
+                (int) actual.experience);
+
+        // the same with a delete
+        stamp = cache.stamp(15L);
+        stale = repository.findById(15L).orElseThrow(IllegalStateException::new);
+        mockMvc.perform(delete("/rest/players/15"))
+                .andExpect(status().isOk());
+        cache.putIfUnchanged(stale, stamp);
+
+        mockMvc.perform(get("/rest/players/15"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,118 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.PlayersExperienceService;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GrantExperienceTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void grantExperienceTest() throws Exception {
+        JsonNode before = getPlayer(1);
+
+        mockMvc.perform(post("/rest/players/1/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1000}"))
+                .andExpect(status().isOk());
+
+        JsonNode after = getPlayer(1);
+        int experience = before.get("experience").asInt() + 1000;
+        int level = (int) ((Math.sqrt(2500 + 200 * experience) - 50) / 100);
+        assertEquals("POST /rest/players/{id}/experience не добавляет опыт.", experience, after.get("experience").asInt());
+        assertEquals("POST /rest/players/{id}/experience не пересчитывает уровень.", level, after.get("level").asInt());
+        assertEquals("POST /rest/players/{id}/experience не пересчитывает опыт до следующего уровня.",
+                50 * (level + 1) * (level + 2) - experience, after.get("untilNextLevel").asInt());
+        assertEquals("POST /rest/players/{id}/experience не увеличивает версию.",
+                before.get("version").asLong() + 1, after.get("version").asLong());
+    }
+
+    //test2
+    @Test
+    public void grantExperienceInvalidTest() throws Exception {
+        mockMvc.perform(post("/rest/players/1/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": -100000000}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/1/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": -" + (getPlayer(1).get("experience").asInt() + 1) + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/1/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/0/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 10}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/410/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 10}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void grantExperienceBatchTest() throws Exception {
+        int experience1 = getPlayer(1).get("experience").asInt();
+        int experience2 = getPlayer(2).get("experience").asInt();
+
+        String contentAsString = mockMvc.perform(post("/rest/players/batch/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"delta\": 100}, {\"id\": 2, \"delta\": -" + (experience2 + 1) + "}, "
+                        + "{\"id\": 1, \"delta\": 200}, {\"id\": 410, \"delta\": 5}, {\"id\": 3}]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode results = mapper.readTree(contentAsString);
+
+        assertEquals("POST /rest/players/batch/experience возвращает не тот статус для существующего игрока.", 200, results.get(0).get("status").asInt());
+        assertEquals("POST /rest/players/batch/experience возвращает не тот статус для отрицательного опыта.", 400, results.get(1).get("status").asInt());
+        assertEquals("POST /rest/players/batch/experience возвращает не тот статус для повторного id.", 200, results.get(2).get("status").asInt());
+        assertEquals("POST /rest/players/batch/experience возвращает не тот статус для несуществующего игрока.", 404, results.get(3).get("status").asInt());
+        assertEquals("POST /rest/players/batch/experience возвращает не тот статус без delta.", 400, results.get(4).get("status").asInt());
+        assertEquals("POST /rest/players/batch/experience не складывает повторные id.", experience1 + 300, getPlayer(1).get("experience").asInt());
+        assertEquals("POST /rest/players/batch/experience меняет опыт при ошибке.", experience2, getPlayer(2).get("experience").asInt());
+    }
+
+    //test4
+    @Test
+    public void grantExperienceConcurrentTest() throws Exception {
+        PlayersExperienceService service = context.getBean(PlayersExperienceService.class);
+        int experience = getPlayer(5).get("experience").asInt();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                futures.add(executor.submit(() -> service.grant(5L, 1)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("Конкурентные начисления опыта теряются.", experience + 400, getPlayer(5).get("experience").asInt());
+    }
+
+    private JsonNode getPlayer(long id) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportPlayersTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importNdjsonTest() throws Exception {
+        String body = TestsHelper.NORMAL_JSON + "\n"
+                + TestsHelper.TOO_BIG_EXPERIENCE_JSON + "\n"
+                + "{oops\n"
+                + "\n"
+                + TestsHelper.NORMAL_JSON + "\n";
+        List<JsonNode> events = postImport("/rest/players/import", body);
+
+        assertEquals("POST /rest/players/import не сообщает о строке с некорректными данными.", 2, events.get(0).get("row").asLong());
+        assertEquals("POST /rest/players/import не сообщает о строке с некорректным JSON.", 3, events.get(1).get("row").asLong());
+        JsonNode done = events.get(events.size() - 1);
+        assertEquals("POST /rest/players/import не завершается итоговым событием.", "done", done.get("event").asText());
+        assertEquals("POST /rest/players/import возвращает не то количество разобранных строк.", 4, done.get("parsed").asLong());
+        assertEquals("POST /rest/players/import возвращает не то количество сохранённых игроков.", 2, done.get("imported").asLong());
+        assertEquals("POST /rest/players/import возвращает не то количество отклонённых строк.", 2, done.get("rejected").asLong());
+        assertEquals("POST /rest/players/import сохраняет не всех игроков.", 42, Integer.parseInt(getContent("/rest/players/count")));
+    }
+
+    //test2
+    @Test
+    public void importCsvTest() throws Exception {
+        String body = "experience,name,title,race,profession,birthday,banned\r\n"
+                + "63986,Амарылис,\"Прозелит, \"\"старший\"\"\",HUMAN,CLERIC,988059600000,false\r\n"
+                + "63986,Амарылис,Прозелит,HOBBITS,CLERIC,988059600000,false\r\n";
+        List<JsonNode> events = postImport("/rest/players/import?format=csv", body);
+
+        assertEquals("POST /rest/players/import?format=csv не сообщает о строке с неизвестной расой.", 3, events.get(0).get("row").asLong());
+        assertEquals("POST /rest/players/import?format=csv возвращает не то количество сохранённых игроков.", 1,
+                events.get(events.size() - 1).get("imported").asLong());
+
+        JsonNode player = mapper.readTree(getContent("/rest/players/41"));
+        assertEquals("POST /rest/players/import?format=csv неправильно разбирает поле в кавычках.", "Прозелит, \"старший\"", player.get("title").asText());
+        assertEquals("POST /rest/players/import?format=csv не рассчитывает уровень.", 35, player.get("level").asInt());
+    }
+
+    //test3
+    @Test
+    public void importManyBatchesTest() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            body.append(TestsHelper.NORMAL_JSON).append('\n');
+        }
+        List<JsonNode> events = postImport("/rest/players/import", body.toString());
+
+        assertEquals("POST /rest/players/import не сообщает о ходе импорта.", "progress", events.get(0).get("event").asText());
+        assertEquals("POST /rest/players/import возвращает не то количество сохранённых игроков.", 2500,
+                events.get(events.size() - 1).get("imported").asLong());
+        assertEquals("POST /rest/players/import сохраняет не всех игроков.", 2540, Integer.parseInt(getContent("/rest/players/count")));
+    }
+
+    //test4
+    @Test
+    public void importExportedCsvTest() throws Exception {
+        String exported = getContent("/rest/players/export?format=csv");
+        List<JsonNode> events = postImport("/rest/players/import?format=csv", exported);
+
+        assertEquals("POST /rest/players/import не принимает результат GET /rest/players/export.", 40,
+                events.get(events.size() - 1).get("imported").asLong());
+        assertEquals("POST /rest/players/import сохраняет не всех игроков.", 80, Integer.parseInt(getContent("/rest/players/count")));
+    }
+
+    //test5
+    @Test
+    public void importUnknownFormatTest() throws Exception {
+        mockMvc.perform(post("/rest/players/import?format=xml").content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<JsonNode> postImport(String url, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post(url).content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : contentAsString.split("\n")) {
+            events.add(mapper.readTree(line));
+        }
+        return events;
+    }
+
+    private String getContent(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPoolMetricsTest() throws Exception {
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/pool"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<String, Object> metrics = mapper.readValue(contentAsString, new TypeReference<Map<String, Object>>() {
+        });
+
+        assertEquals("Метрики пула соединений возвращают не то имя пула.", "rpg", metrics.get("pool"));
+        assertTrue("Метрики пула соединений не учитывают выдачу соединений.", ((Number) metrics.get("acquireCount")).longValue() > 0);
+        assertEquals("Метрики пула соединений не содержат активных соединений.", 0, ((Number) metrics.get("active")).intValue());
+    }
+
+    //test2
+    @Test
+    public void getCacheMetricsTest() throws Exception {
+        Map<String, Object> before = getMetrics("/rest/metrics/cache");
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(status().isOk());
+        Map<String, Object> after = getMetrics("/rest/metrics/cache");
+
+        assertEquals("Метрики кэша не учитывают промахи.", 1, delta(before, after, "misses"));
+        assertEquals("Метрики кэша не учитывают попадания.", 1, delta(before, after, "hits"));
+    }
+
+    //test3
+    @Test
+    public void cachedSearchDoesNotBorrowConnectionTest() throws Exception {
+        mockMvc.perform(get("/rest/players?race=ELF&pageSize=5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(status().isOk());
+
+        Map<String, Object> before = getMetrics("/rest/metrics/pool");
+        mockMvc.perform(get("/rest/players?pageSize=5&race=ELF&name="))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count?race=ELF&pageNumber=3"))
+                .andExpect(status().isOk());
+        Map<String, Object> after = getMetrics("/rest/metrics/pool");
+
+        assertEquals("Повторный поиск с теми же фильтрами обращается к базе данных.", 0, delta(before, after, "acquireCount"));
+    }
+
+    //test4
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getExecutorMetricsTest() throws Exception {
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isOk());
+        Map<String, Object> metrics = getMetrics("/rest/metrics/executor");
+        Map<String, Object> endpoint = (Map<String, Object>) ((Map<String, Object>) metrics.get("endpoints")).get("get");
+
+        assertTrue("Метрики исполнителя не учитывают выполненные запросы.", ((Number) endpoint.get("completed")).longValue() > 0);
+        assertEquals("Метрики исполнителя содержат отклонённые запросы.", 0, ((Number) endpoint.get("rejected")).intValue());
+    }
+
+    //test5
+    @Test
+    public void getPrometheusMetricsTest() throws Exception {
+        mockMvc.perform(get("/rest/players?race=HOBBIT&banned=true&pageSize=7"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/3"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/5"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Метрики Prometheus не содержат время операции getPlayers.",
+                contentAsString.contains("players_operation_seconds{operation=\"getPlayers\",quantile=\"0.999\"}"));
+        assertTrue("Метрики Prometheus не содержат время запроса к базе данных.",
+                contentAsString.contains("players_query_seconds_count{operation=\"getPlayers\"}"));
+        assertTrue("Метрики Prometheus не содержат время записи в базу данных.",
+                contentAsString.contains("players_query_seconds_count{operation=\"delete\"}"));
+        assertTrue("Метрики Prometheus не содержат время сериализации.",
+                contentAsString.contains("players_serialization_seconds_count{format=\"json\"}"));
+        assertTrue("Метрики Prometheus не содержат распределение числа строк.",
+                contentAsString.contains("players_rows_returned_count{operation=\"getPlayers\"}"));
+        assertTrue("Метрики Prometheus не учитывают сочетание фильтров.",
+                contentAsString.contains("players_filter_queries_total{operation=\"getPlayers\",filters=\"race,banned\"}"));
+    }
+
+    private Map<String, Object> getMetrics(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, new TypeReference<Map<String, Object>>() {
+        });
+    }
+
+    private long delta(Map<String, Object> before, Map<String, Object> after, String key) {
+        return ((Number) after.get(key)).longValue() - ((Number) before.get(key)).longValue();
+    }
+}
@@ -0,0 +1,74 @@
+package com.game.controller;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+
+public class PlayerIndexTest extends AbstractTest {
+
+    private static final String[] FILTERS = {
+            "p.race = 'ELF'",
+            "p.profession = 'SORCERER'",
+            "p.birthday >= DATE '2005-01-01' AND p.birthday <= DATE '2009-01-01'",
+            "p.banned = FALSE",
+            "p.experience >= 30000 AND p.experience <= 150000",
+            "p.level >= 20 AND p.level <= 50"};
+
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\* PUBLIC\\.\\w+: ");
+
+    //test1
+    @Test
+    public void everyFilterCombinationUsesIndexTest() throws Exception {
+        try (Connection connection = context.getBean(DataSource.class).getConnection();
+             Statement statement = connection.createStatement()) {
+            for (PlayerOrder order : PlayerOrder.values()) {
+                for (int mask = 1; mask < 1 << FILTERS.length; mask++) {
+                    StringBuilder where = new StringBuilder("1 = 1");
+                    for (int i = 0; i < FILTERS.length; i++) {
+                        if ((mask & 1 << i) != 0) {
+                            where.append(" AND ").append(FILTERS[i]);
+                        }
+                    }
+                    String plan = explain(statement, "SELECT * FROM player p WHERE " + where
+                            + orderBy(order));
+
+                    assertTrue("Запрос с фильтрами " + where + " выполняется полным сканированием: " + plan,
+                            INDEX_LOOKUP.matcher(plan).find());
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void everyOrderUsesSortedIndexTest() throws Exception {
+        try (Connection connection = context.getBean(DataSource.class).getConnection();
+             Statement statement = connection.createStatement()) {
+            for (PlayerOrder order : PlayerOrder.values()) {
+                String plan = explain(statement, "SELECT * FROM player p" + orderBy(order));
+
+                assertTrue("Сортировка по " + order + " не использует индекс: " + plan, plan.contains("index sorted"));
+            }
+        }
+    }
+
+    private String orderBy(PlayerOrder order) {
+        if (order == PlayerOrder.ID) {
+            return " ORDER BY p.id LIMIT 3";
+        }
+        return " ORDER BY p." + order.getFieldName() + ", p.id LIMIT 3";
+    }
+
+    private String explain(Statement statement, String query) throws Exception {
+        try (ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.game.controller;
+
+import com.game.config.QueryTraceFilter;
+import com.game.controller.utils.QueryCount;
+import com.game.controller.utils.TestsHelper;
+import com.game.metrics.QueryTrace;
+import com.game.service.PlayerCache;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class QueryCountTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getPlayerQueryCountTest() throws Exception {
+        mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.none());
+        mockMvc.perform(get("/rest/players/410"))
+                .andExpect(status().isNotFound())
+                .andExpect(QueryCount.atMost(1));
+    }
+
+    //test2
+    @Test
+    public void getPlayersQueryCountTest() throws Exception {
+        mockMvc.perform(get("/rest/players?race=HOBBIT&pageSize=5"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(get("/rest/players?race=HOBBIT&pageSize=5"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.none());
+        mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(get("/rest/players/page?race=DWARF&pageSize=1"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(2));
+    }
+
+    //test3
+    @Test
+    public void createPlayerQueryCountTest() throws Exception {
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+    }
+
+    //test4
+    @Test
+    public void updatePlayerQueryCountTest() throws Exception {
+        mockMvc.perform(post("/rest/players/15")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(2));
+        mockMvc.perform(post("/rest/players/410")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isNotFound())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(post("/rest/players/0")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format(TestsHelper.JSON_SKELETON, "Джур", false, 804)))
+                .andExpect(status().isBadRequest())
+                .andExpect(QueryCount.none());
+    }
+
+    //test5
+    @Test
+    public void deletePlayerQueryCountTest() throws Exception {
+        mockMvc.perform(delete("/rest/players/16"))
+                .andExpect(status().isOk())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(get("/rest/players/16"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/rest/players/410"))
+                .andExpect(status().isNotFound())
+                .andExpect(QueryCount.atMost(1));
+        mockMvc.perform(delete("/rest/players/0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(QueryCount.none());
+    }
+
+    //test6
+    @Test
+    public void revalidatePlayerReadsOnlyVersionTest() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/rest/players/14").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(QueryCount.none());
+
+        context.getBean(PlayerCache.class).reload();
+        mockMvc.perform(get("/rest/players/14").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(QueryCount.atMost(1))
+                .andExpect(result -> {
+                    QueryTrace trace = (QueryTrace) result.getRequest().getAttribute(QueryTraceFilter.ATTRIBUTE);
+                    String sql = trace.getStatements().get(0).getSql().toLowerCase(Locale.ROOT);
+                    assertFalse("Проверка ETag загрузила игрока целиком: " + sql, sql.contains("name"));
+                });
+    }
+}
@@ -181,4 +181,45 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} корабль должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void updatePlayerWithCurrentVersionTest() throws Exception {
+        PlayerInfoTest before = mapper.readValue(mockMvc.perform(MockMvcRequestBuilders.get("/rest/players/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+
+        String contentAsString = mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 1000, \"version\": " + before.version + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Обновление игрока с актуальной версией не меняет опыт.", 1000, actual.experience);
+        assertEquals("Обновление игрока не увеличивает версию.", before.version + 1, actual.version);
+    }
+
+    //test13
+    @Test
+    public void updatePlayerWithStaleVersionTest() throws Exception {
+        PlayerInfoTest before = mapper.readValue(mockMvc.perform(MockMvcRequestBuilders.get("/rest/players/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 1000, \"version\": " + before.version + "}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 2000, \"version\": " + before.version + "}"))
+                .andExpect(status().isConflict());
+
+        PlayerInfoTest actual = mapper.readValue(mockMvc.perform(MockMvcRequestBuilders.get("/rest/players/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+        assertEquals("Обновление с устаревшей версией перезаписало игрока.", 1000, actual.experience);
+    }
+}
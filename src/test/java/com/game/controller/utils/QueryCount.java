@@ -0,0 +1,25 @@
+package com.game.controller.utils;
+
+import com.game.config.QueryTraceFilter;
+import com.game.metrics.QueryTrace;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Pins the number of SQL statements a request may run, e.g. .andExpect(QueryCount.atMost(1)).
+public class QueryCount {
+
+    public static ResultMatcher atMost(int maxStatements) {
+        return result -> {
+            QueryTrace trace = (QueryTrace) result.getRequest().getAttribute(QueryTraceFilter.ATTRIBUTE);
+            assertNotNull("Запрос прошёл без QueryTraceFilter.", trace);
+            assertTrue("Запрос выполнил больше " + maxStatements + " SQL-запросов: " + trace,
+                    trace.getCount() <= maxStatements);
+        };
+    }
+
+    public static ResultMatcher none() {
+        return atMost(0);
+    }
+}